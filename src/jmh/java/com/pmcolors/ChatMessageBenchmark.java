@@ -0,0 +1,98 @@
+package com.pmcolors;
+
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.events.ChatMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMessageBenchmark
+{
+	private static final int EVENTS = 1024;
+	private static final String MESSAGE = "hey, are you <col=ff0000>coming</col> to the raid?";
+
+	@Param({"10", "1000", "10000", "100000"})
+	public int players;
+
+	@Param({"0", "50", "100"})
+	public int hitPercent;
+
+	private PluginHarness harness;
+	private PMColorsPlugin plugin;
+
+	private final ChatMessage[] privateMessages = new ChatMessage[EVENTS];
+	private final StubMessageNode[] privateNodes = new StubMessageNode[EVENTS];
+	private final ChatMessage[] loginMessages = new ChatMessage[EVENTS];
+	private final StubMessageNode[] loginNodes = new StubMessageNode[EVENTS];
+	private final String[] loginValues = new String[EVENTS];
+	private int next;
+
+	@Setup
+	public void setUp()
+	{
+		harness = new PluginHarness();
+		plugin = harness.getPlugin();
+		harness.highlight(players);
+
+		final String[] senders = PluginHarness.senders(EVENTS, players, hitPercent, 42);
+		for (int i = 0; i < EVENTS; i++)
+		{
+			privateNodes[i] = new StubMessageNode(i, ChatMessageType.PRIVATECHAT, senders[i], MESSAGE);
+			privateMessages[i] = chatMessage(privateNodes[i], senders[i], MESSAGE);
+
+			loginValues[i] = senders[i] + " has logged in.";
+			loginNodes[i] = new StubMessageNode(EVENTS + i, ChatMessageType.LOGINLOGOUTNOTIFICATION, "", loginValues[i]);
+			loginMessages[i] = chatMessage(loginNodes[i], "", loginValues[i]);
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	@Benchmark
+	public String privateMessage()
+	{
+		final int i = next++ & (EVENTS - 1);
+		privateNodes[i].value = MESSAGE;
+		plugin.onChatMessage(privateMessages[i]);
+		return privateNodes[i].value;
+	}
+
+	@Benchmark
+	public String loginNotification()
+	{
+		final int i = next++ & (EVENTS - 1);
+		loginNodes[i].value = loginValues[i];
+		plugin.onChatMessage(loginMessages[i]);
+		return loginNodes[i].value;
+	}
+
+	private static ChatMessage chatMessage(StubMessageNode node, String name, String message)
+	{
+		final ChatMessage chatMessage = new ChatMessage();
+		chatMessage.setMessageNode(node.getNode());
+		chatMessage.setType(node.type);
+		chatMessage.setName(name);
+		chatMessage.setMessage(message);
+		return chatMessage;
+	}
+}
@@ -0,0 +1,87 @@
+package com.pmcolors;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigBenchmark
+{
+	@Param({"10", "1000", "10000", "100000"})
+	public int players;
+
+	private PluginHarness harness;
+	private PMColorsPlugin plugin;
+	private String[] canonicalNames;
+	private String legacyJson;
+	private int next;
+
+	@Setup
+	public void setUp()
+	{
+		harness = new PluginHarness();
+		plugin = harness.getPlugin();
+		harness.highlight(players);
+
+		canonicalNames = new String[players];
+		for (int i = 0; i < players; i++)
+		{
+			canonicalNames[i] = HighlightRegistry.canonicalName(PluginHarness.playerName(i));
+			plugin.savePlayer(canonicalNames[i], plugin.getRegistry().get(canonicalNames[i]));
+		}
+
+		legacyJson = new Gson().toJson(plugin.getRegistry().getPlayers());
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	/**
+	 * The write a coalesced updateConfig ends up doing on the executor for one edited player.
+	 */
+	@Benchmark
+	public int savePlayer()
+	{
+		final String name = canonicalNames[next++ % players];
+		plugin.savePlayer(name, plugin.getRegistry().get(name));
+		return harness.getConfiguration().size();
+	}
+
+	@Benchmark
+	public int loadConfig()
+	{
+		plugin.getRegistry().clear();
+		plugin.loadConfig();
+		return plugin.getRegistry().size();
+	}
+
+	/**
+	 * Streams a single json array of every player, as stored by older versions, into a fresh registry.
+	 */
+	@Benchmark
+	public int loadLegacyConfig() throws IOException
+	{
+		final HighlightRegistry registry = new HighlightRegistry();
+		return PMColorsPlugin.loadLegacyConfig(legacyJson, registry::add).getLoaded();
+	}
+}
@@ -0,0 +1,89 @@
+package com.pmcolors;
+
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.MenuAction;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.events.MenuOpened;
+import net.runelite.api.widgets.WidgetInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuOpenedBenchmark
+{
+	private static final int EVENTS = 1024;
+
+	@Param({"10", "1000", "10000", "100000"})
+	public int players;
+
+	@Param({"0", "50", "100"})
+	public int hitPercent;
+
+	private PluginHarness harness;
+	private PMColorsPlugin plugin;
+	private StubClient client;
+
+	private final MenuOpened event = new MenuOpened();
+	private final MenuEntry[][] menus = new MenuEntry[EVENTS][];
+	private int next;
+
+	@Setup
+	public void setUp()
+	{
+		harness = new PluginHarness();
+		plugin = harness.getPlugin();
+		client = harness.getStubClient();
+		harness.highlight(players);
+
+		final int widgetId = WidgetInfo.PRIVATE_CHAT_MESSAGE.getId();
+		final String[] senders = PluginHarness.senders(EVENTS, players, hitPercent, 42);
+		for (int i = 0; i < EVENTS; i++)
+		{
+			final String target = "<col=ffffff>" + senders[i];
+			menus[i] = new MenuEntry[]{entry("Cancel", "", 0), entry("Delete", target, widgetId),
+				entry("Message", target, widgetId)};
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	@Benchmark
+	public MenuEntry[] friendsListMessage()
+	{
+		final int i = next++ & (EVENTS - 1);
+		client.menuEntries = menus[i];
+		event.setMenuEntries(menus[i]);
+		plugin.onMenuOpened(event);
+		return client.menuEntries;
+	}
+
+	private static MenuEntry entry(String option, String target, int widgetId)
+	{
+		final MenuEntry entry = new MenuEntry();
+		entry.setOption(option);
+		entry.setTarget(target);
+		entry.setType(MenuAction.CC_OP.getId());
+		entry.setParam0(-1);
+		entry.setParam1(widgetId);
+		return entry;
+	}
+}
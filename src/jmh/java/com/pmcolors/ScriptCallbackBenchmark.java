@@ -0,0 +1,77 @@
+package com.pmcolors;
+
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.events.ScriptCallbackEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScriptCallbackBenchmark
+{
+	private static final int EVENTS = 1024;
+	private static final String FROM = "From ";
+
+	@Param({"10", "1000", "10000", "100000"})
+	public int players;
+
+	@Param({"0", "50", "100"})
+	public int hitPercent;
+
+	private PluginHarness harness;
+	private PMColorsPlugin plugin;
+	private StubClient client;
+
+	private final ScriptCallbackEvent event = new ScriptCallbackEvent();
+	private final String[][] stacks = new String[EVENTS][];
+	private int next;
+
+	@Setup
+	public void setUp()
+	{
+		harness = new PluginHarness();
+		plugin = harness.getPlugin();
+		client = harness.getStubClient();
+		harness.highlight(players);
+
+		event.setEventName("privateChatFrom");
+
+		// Stack is: To/From playername :, with the name at index 2 and To/From third from the top
+		final String[] senders = PluginHarness.senders(EVENTS, players, hitPercent, 42);
+		for (int i = 0; i < EVENTS; i++)
+		{
+			stacks[i] = new String[]{"", "", senders[i], FROM, senders[i], ":"};
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	@Benchmark
+	public String privateChatFrom()
+	{
+		final String[] stack = stacks[next++ & (EVENTS - 1)];
+		stack[3] = FROM;
+		client.stringStack = stack;
+		client.stringStackSize = stack.length;
+		plugin.onScriptCallbackEvent(event);
+		return stack[3];
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * An Aho-Corasick automaton over a set of keys, finding every key occurring in a text in a single
+ * pass over it. Each key carries an int value reported when it matches. Keys are added first,
+ * then {@link #build()} links the automaton, after which it is immutable and safe to share.
+ */
+final class AhoCorasick
+{
+	private static final int[] NO_VALUES = new int[0];
+
+	private final Node root = new Node();
+	private boolean built;
+
+	void add(String key, int value)
+	{
+		if (built)
+		{
+			throw new IllegalStateException("automaton already built");
+		}
+
+		Node node = root;
+		for (int i = 0; i < key.length(); i++)
+		{
+			node = node.childOrAdd(key.charAt(i));
+		}
+		node.values = concat(node.values, new int[]{value});
+	}
+
+	// breadth first, so a node's failure link is final before its children are linked
+	void build()
+	{
+		built = true;
+
+		final Queue<Node> queue = new ArrayDeque<>();
+		for (Node child : root.children)
+		{
+			child.fail = root;
+			queue.add(child);
+		}
+
+		while (!queue.isEmpty())
+		{
+			final Node node = queue.poll();
+			for (int i = 0; i < node.children.length; i++)
+			{
+				final Node child = node.children[i];
+				final char c = node.labels[i];
+
+				Node fail = node.fail;
+				while (fail != root && fail.child(c) == null)
+				{
+					fail = fail.fail;
+				}
+				final Node target = fail.child(c);
+				child.fail = target != null ? target : root;
+
+				// a match ending here also ends every key that is a suffix of this one
+				child.values = concat(child.values, child.fail.values);
+				queue.add(child);
+			}
+		}
+	}
+
+	boolean isEmpty()
+	{
+		return root.children.length == 0;
+	}
+
+	/**
+	 * The state before any text was read.
+	 */
+	Node start()
+	{
+		return root;
+	}
+
+	/**
+	 * Reads one character from a state.
+	 */
+	Node next(Node node, char c)
+	{
+		while (true)
+		{
+			final Node child = node.child(c);
+			if (child != null)
+			{
+				return child;
+			}
+			if (node == root)
+			{
+				return root;
+			}
+			node = node.fail;
+		}
+	}
+
+	private static int[] concat(int[] a, int[] b)
+	{
+		if (b.length == 0)
+		{
+			return a;
+		}
+
+		final int[] result = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+	/**
+	 * A state of the automaton. Keys are short, so children are kept in small arrays searched linearly.
+	 */
+	static final class Node
+	{
+		private char[] labels = new char[0];
+		private Node[] children = new Node[0];
+		private Node fail;
+		private int[] values = NO_VALUES;
+
+		/**
+		 * The values of every key ending at this state, do not modify.
+		 */
+		int[] values()
+		{
+			return values;
+		}
+
+		private Node child(char c)
+		{
+			for (int i = 0; i < labels.length; i++)
+			{
+				if (labels[i] == c)
+				{
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		private Node childOrAdd(char c)
+		{
+			Node child = child(c);
+			if (child == null)
+			{
+				child = new Node();
+				labels = Arrays.copyOf(labels, labels.length + 1);
+				children = Arrays.copyOf(children, children.length + 1);
+				labels[labels.length - 1] = c;
+				children[children.length - 1] = child;
+			}
+			return child;
+		}
+	}
+}
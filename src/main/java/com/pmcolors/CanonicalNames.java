@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import net.runelite.client.util.Text;
+
+/**
+ * Produces the canonical form of a player name used as the highlight index key: tags removed,
+ * Jagex name rules applied and lower cased. The same names come in over and over, so canonical
+ * forms are remembered per raw name and shared by every caller.
+ */
+final class CanonicalNames
+{
+	/**
+	 * Large enough for any Jagex display name, including the odd tag or separator around it.
+	 */
+	static final int BUFFER_LENGTH = 64;
+
+	/**
+	 * Roomy enough for a friends list, a clan and a busy world's login notifications.
+	 */
+	static final int CACHE_SIZE = 4096;
+
+	private static final Cache<String, String> CACHE = CacheBuilder.newBuilder()
+		.maximumSize(CACHE_SIZE)
+		.recordStats()
+		.build();
+
+	private CanonicalNames()
+	{
+	}
+
+	static String canonicalize(String name)
+	{
+		String canonical = CACHE.getIfPresent(name);
+		if (canonical == null)
+		{
+			canonical = Text.toJagexName(Text.removeTags(name)).toLowerCase();
+			CACHE.put(name, canonical);
+		}
+		return canonical;
+	}
+
+	/**
+	 * The hits and misses of the canonical name cache since it was created.
+	 */
+	static CacheStats stats()
+	{
+		return CACHE.stats();
+	}
+
+	/**
+	 * Writes the canonical form of {@code text[start, end)} into {@code buffer} without allocating,
+	 * matching {@link #canonicalize(String)} on the same substring.
+	 *
+	 * @return the canonical length, or -1 if it does not fit in the buffer
+	 */
+	static int canonicalize(String text, int start, int end, char[] buffer)
+	{
+		int length = 0;
+		int trimmedLength = 0;
+
+		for (int i = start; i < end; i++)
+		{
+			char c = text.charAt(i);
+			if (c == '<')
+			{
+				final int close = text.indexOf('>', i + 1);
+				if (close != -1 && close < end)
+				{
+					i = close;
+					continue;
+				}
+			}
+
+			if (c == '\u00A0' || c == '_' || c == '-')
+			{
+				c = ' ';
+			}
+			else if (c > 127)
+			{
+				continue;
+			}
+			else if (c >= 'A' && c <= 'Z')
+			{
+				c += 'a' - 'A';
+			}
+
+			if (c <= ' ')
+			{
+				if (length == 0)
+				{
+					// leading whitespace is trimmed
+					continue;
+				}
+			}
+
+			if (length == buffer.length)
+			{
+				return -1;
+			}
+
+			buffer[length++] = c;
+			if (c > ' ')
+			{
+				trimmedLength = length;
+			}
+		}
+
+		return trimmedLength;
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.api.MessageNode;
+
+/**
+ * Remembers the private chat lines still in the chatbox by sender, so that highlighting, editing
+ * or removing a player restyles their earlier messages too. Only the senders whose look changed
+ * are rewritten, from the text the game originally sent, instead of scanning the whole chat
+ * buffer. At most {@link #MAX_LINES} lines are kept, the oldest are forgotten first. Only used on
+ * the client thread.
+ */
+final class ChatHistory
+{
+	/**
+	 * A little more than the private chat lines the chatbox keeps.
+	 */
+	static final int MAX_LINES = 512;
+
+	private final Map<String, Sender> senders = new HashMap<>();
+	private final Line[] lines = new Line[MAX_LINES];
+	private int next;
+
+	private long version = -1;
+	private KeywordHighlighter keywords;
+	private HighlightStyle previewed;
+
+	/**
+	 * The style of {@code name}'s private messages with the color being picked swapped in, or null
+	 * if they are not highlighted.
+	 *
+	 * @param preview the color being picked, or null if the picker is closed
+	 */
+	static HighlightStyle messageStyle(HighlightSnapshot snapshot, ColorPreview preview, String name)
+	{
+		HighlightStyle style = snapshot.findStyle(name);
+		if (preview != null)
+		{
+			style = preview.styleOf(style);
+		}
+		return style != null && style.isHighlightMessage() ? style : null;
+	}
+
+	/**
+	 * Remembers a private chat line after it was highlighted with {@code style}.
+	 *
+	 * @param original the text of the line as the game sent it
+	 */
+	void add(String name, MessageNode node, String original, HighlightStyle style)
+	{
+		// evicted first, the sender of the oldest line may be the one sending this line
+		final Line evicted = lines[next];
+		if (evicted != null)
+		{
+			evicted.sender.lines.remove(evicted);
+			if (evicted.sender.lines.isEmpty())
+			{
+				senders.remove(CanonicalNames.canonicalize(evicted.sender.name));
+			}
+		}
+
+		final String canonicalName = CanonicalNames.canonicalize(name);
+		Sender sender = senders.get(canonicalName);
+		if (sender == null)
+		{
+			sender = new Sender(name);
+			senders.put(canonicalName, sender);
+		}
+		sender.style = style;
+
+		final Line line = new Line(sender, node, original, node.getValue());
+		sender.lines.add(line);
+		lines[next] = line;
+		next = (next + 1) % MAX_LINES;
+	}
+
+	/**
+	 * Rewrites the lines of every sender whose look changed since the last call, meant to be
+	 * called once per tick and whenever the color preview changes.
+	 *
+	 * @param preview the color being picked, or null if the picker is closed
+	 * @return whether any line changed, in which case the chatbox should be refreshed
+	 */
+	boolean update(HighlightSnapshot snapshot, ColorPreview preview, KeywordHighlighter keywords, int[] matches)
+	{
+		final boolean rekeyed = keywords != this.keywords;
+		final HighlightStyle previewed = preview != null ? preview.getShown() : null;
+		if (snapshot.getVersion() == version && !rekeyed && previewed == this.previewed)
+		{
+			return false;
+		}
+		version = snapshot.getVersion();
+		this.keywords = keywords;
+		this.previewed = previewed;
+
+		boolean changed = false;
+		for (Sender sender : senders.values())
+		{
+			final HighlightStyle style = messageStyle(snapshot, preview, sender.name);
+			if (!rekeyed && sameLook(style, sender.style))
+			{
+				continue;
+			}
+			sender.style = style;
+
+			for (Line line : sender.lines)
+			{
+				changed |= line.rewrite(style, keywords, matches);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Puts back the original text of every line still showing, for when the plugin stops.
+	 *
+	 * @return whether any line changed
+	 */
+	boolean restore(int[] matches)
+	{
+		boolean changed = false;
+		for (Sender sender : senders.values())
+		{
+			for (Line line : sender.lines)
+			{
+				changed |= line.rewrite(null, KeywordHighlighter.EMPTY, matches);
+			}
+		}
+		clear();
+		return changed;
+	}
+
+	void clear()
+	{
+		senders.clear();
+		Arrays.fill(lines, null);
+		next = 0;
+		version = -1;
+		keywords = null;
+		previewed = null;
+	}
+
+	private static boolean sameLook(HighlightStyle a, HighlightStyle b)
+	{
+		if (a == b)
+		{
+			return true;
+		}
+		return a != null && b != null && a.getColor().equals(b.getColor());
+	}
+
+	private static final class Sender
+	{
+		private final String name;
+		private final List<Line> lines = new ArrayList<>(4);
+		private HighlightStyle style;
+
+		private Sender(String name)
+		{
+			this.name = name;
+		}
+	}
+
+	private static final class Line
+	{
+		private final Sender sender;
+		private final MessageNode node;
+		private final String original;
+		private String written;
+
+		private Line(Sender sender, MessageNode node, String original, String written)
+		{
+			this.sender = sender;
+			this.node = node;
+			this.original = original;
+			this.written = written;
+		}
+
+		private boolean rewrite(HighlightStyle style, KeywordHighlighter keywords, int[] matches)
+		{
+			if (node.getValue() != written)
+			{
+				// edited by someone else since, leave it be
+				return false;
+			}
+
+			final String value = ColorTagRewriter.highlight(original, style, keywords, matches);
+			if (value.equals(written))
+			{
+				return false;
+			}
+
+			node.setValue(value);
+			written = value;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import net.runelite.api.ChatMessageType;
+
+/**
+ * A gzipped stream of the chat messages and private chat script callbacks the plugin received,
+ * in the order and at the pace they arrived, for replaying offline. Events are recorded before
+ * the plugin changes them.
+ *
+ * <p>The format is a magic number and version, then one record per event: a kind byte, the
+ * nanoseconds since the previous event as a var long, and the event's strings, the chat message
+ * type by name. A null string is stored as an empty one.
+ */
+public final class ChatRecording
+{
+	private static final int MAGIC = 0x504d4352; // "PMCR"
+	private static final int VERSION = 1;
+
+	private static final int CHAT_MESSAGE = 1;
+	private static final int SCRIPT_CALLBACK = 2;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Receives the events of a recording as they are read.
+	 */
+	public interface Visitor
+	{
+		void chatMessage(long nanos, ChatMessageType type, String name, String sender, String message) throws IOException;
+
+		/**
+		 * @param stack the string stack, only valid until this method returns
+		 */
+		void scriptCallback(long nanos, String eventName, String[] stack, int stackSize) throws IOException;
+	}
+
+	private ChatRecording()
+	{
+	}
+
+	/**
+	 * Reads a whole recording, handing every event to the visitor.
+	 *
+	 * @return the number of events read
+	 */
+	public static int read(File file, Visitor visitor) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+			new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE), BUFFER_SIZE)))
+		{
+			if (in.readInt() != MAGIC)
+			{
+				throw new IOException("not a chat recording: " + file);
+			}
+
+			final int version = in.readUnsignedByte();
+			if (version != VERSION)
+			{
+				throw new IOException("unsupported chat recording version " + version);
+			}
+
+			String[] stack = new String[0];
+			long nanos = 0;
+			int events = 0;
+
+			while (true)
+			{
+				final int kind = in.read();
+				if (kind == -1)
+				{
+					return events;
+				}
+
+				nanos += readVarLong(in);
+				switch (kind)
+				{
+					case CHAT_MESSAGE:
+						visitor.chatMessage(nanos, chatMessageType(in.readUTF()), in.readUTF(), in.readUTF(), in.readUTF());
+						break;
+					case SCRIPT_CALLBACK:
+						final String eventName = in.readUTF();
+						final int size = readVarInt(in);
+						if (stack.length < size)
+						{
+							stack = new String[size];
+						}
+						for (int i = 0; i < size; i++)
+						{
+							stack[i] = in.readUTF();
+						}
+						visitor.scriptCallback(nanos, eventName, stack, size);
+						break;
+					default:
+						throw new IOException("corrupt chat recording, unknown event kind " + kind);
+				}
+				events++;
+			}
+		}
+	}
+
+	/**
+	 * Appends events to a new recording. Not thread safe, events are recorded on the client thread.
+	 */
+	public static final class Writer implements Closeable
+	{
+		private final DataOutputStream out;
+		private long lastNanos = System.nanoTime();
+		private int events;
+
+		public Writer(File file) throws IOException
+		{
+			out = new DataOutputStream(new BufferedOutputStream(
+				new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+		}
+
+		public void chatMessage(ChatMessageType type, String name, String sender, String message) throws IOException
+		{
+			out.writeByte(CHAT_MESSAGE);
+			writeElapsed();
+			writeString(type.name());
+			writeString(name);
+			writeString(sender);
+			writeString(message);
+			events++;
+		}
+
+		public void scriptCallback(String eventName, String[] stack, int stackSize) throws IOException
+		{
+			out.writeByte(SCRIPT_CALLBACK);
+			writeElapsed();
+			writeString(eventName);
+			writeVarLong(out, stackSize);
+			for (int i = 0; i < stackSize; i++)
+			{
+				writeString(stack[i]);
+			}
+			events++;
+		}
+
+		public int getEvents()
+		{
+			return events;
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			out.close();
+		}
+
+		private void writeElapsed() throws IOException
+		{
+			final long now = System.nanoTime();
+			writeVarLong(out, Math.max(0, now - lastNanos));
+			lastNanos = now;
+		}
+
+		private void writeString(String value) throws IOException
+		{
+			out.writeUTF(value != null ? value : "");
+		}
+	}
+
+	private static ChatMessageType chatMessageType(String name)
+	{
+		// stored by name, the ordinals change between client versions
+		try
+		{
+			return ChatMessageType.valueOf(name);
+		}
+		catch (IllegalArgumentException ex)
+		{
+			return ChatMessageType.UNKNOWN;
+		}
+	}
+
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException
+	{
+		while ((value & ~0x7FL) != 0)
+		{
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException
+	{
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			final int b = in.read();
+			if (b == -1)
+			{
+				throw new EOFException("truncated chat recording");
+			}
+
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IOException("corrupt chat recording, var long too long");
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException
+	{
+		final long value = readVarLong(in);
+		if (value > Integer.MAX_VALUE)
+		{
+			throw new IOException("corrupt chat recording, count out of range");
+		}
+		return (int) value;
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.awt.Color;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Shows the color being picked in the chat while the color picker is open. The picker reports
+ * far more changes than the client draws frames, so only the latest color is kept and turned into
+ * a preview style at most once per frame on the client thread. The preview is an overlay over the
+ * snapshot, the registry is not touched until the picker closes and the final color is committed
+ * once.
+ */
+final class ColorPreview
+{
+	private final AtomicReference<Color> pending = new AtomicReference<>();
+	private final Function<HighlightSnapshot, HighlightStyle> target;
+	private final Consumer<Color> commit;
+
+	// the latest color picked, set together with pending but never taken
+	private volatile Color picked;
+
+	// the style being previewed and what it is shown as instead, only used on the client thread
+	private HighlightStyle base;
+	private HighlightStyle shown;
+
+	/**
+	 * @param target resolves the style being picked for in a snapshot, or null if it is gone
+	 * @param commit applies the final color to the registry and saves it
+	 */
+	ColorPreview(Function<HighlightSnapshot, HighlightStyle> target, Consumer<Color> commit)
+	{
+		this.target = target;
+		this.commit = commit;
+	}
+
+	/**
+	 * Called by the picker on every change, only the latest color is kept.
+	 */
+	void colorChanged(Color color)
+	{
+		picked = color;
+		pending.set(color);
+	}
+
+	/**
+	 * Turns the latest color into the preview style if it changed since the last frame, called on
+	 * the client thread before every frame.
+	 *
+	 * @return whether the preview style changed
+	 */
+	boolean apply(HighlightSnapshot snapshot)
+	{
+		final Color color = pending.getAndSet(null);
+		if (color == null)
+		{
+			return false;
+		}
+
+		final HighlightStyle style = target.apply(snapshot);
+		if (style == null)
+		{
+			return false;
+		}
+
+		base = style;
+		shown = HighlightStyle.of(color, style.isHighlightUsername(), style.isHighlightMessage(), style.isHighlightLoggedInOut());
+		return true;
+	}
+
+	/**
+	 * The preview style, or null if no color was picked yet. Only used on the client thread.
+	 */
+	HighlightStyle getShown()
+	{
+		return shown;
+	}
+
+	/**
+	 * Swaps the style being picked for its preview. Only used on the client thread.
+	 */
+	HighlightStyle styleOf(HighlightStyle style)
+	{
+		return style != null && style == base ? shown : style;
+	}
+
+	/**
+	 * Commits the final color once, if anything was picked.
+	 *
+	 * @param color the color the picker closed with, or null to keep the latest one
+	 */
+	synchronized void commit(Color color)
+	{
+		pending.set(null);
+		final Color latest = picked;
+		if (latest == null)
+		{
+			return;
+		}
+		picked = null;
+
+		commit.accept(color != null ? color : latest);
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import net.runelite.client.util.ColorUtil;
+
+/**
+ * Wraps chat text in a highlight color in a single pass. Any closing color tag embedded in the
+ * text is replaced by the highlight's opening tag so the rest of the message keeps the highlight.
+ * Keyword highlights are spliced in by the same pass.
+ */
+public final class ColorTagRewriter
+{
+	private static final String CLOSING_TAG = ColorUtil.CLOSING_COLOR_TAG;
+
+	private ColorTagRewriter()
+	{
+	}
+
+	public static String recolor(String value, HighlightStyle style)
+	{
+		final String openTag = style.getOpenTag();
+		final String closeTag = style.getCloseTag();
+
+		int closingTags = 0;
+		for (int i = value.indexOf(CLOSING_TAG); i != -1; i = value.indexOf(CLOSING_TAG, i + CLOSING_TAG.length()))
+		{
+			closingTags++;
+		}
+
+		final StringBuilder sb = new StringBuilder(openTag.length() + value.length()
+			+ closingTags * (openTag.length() - CLOSING_TAG.length()) + closeTag.length());
+		sb.append(openTag);
+
+		int start = 0;
+		for (int i = value.indexOf(CLOSING_TAG); i != -1; i = value.indexOf(CLOSING_TAG, start))
+		{
+			sb.append(value, start, i).append(openTag);
+			start = i + CLOSING_TAG.length();
+		}
+
+		return sb.append(value, start, value.length()).append(closeTag).toString();
+	}
+
+	/**
+	 * Highlights the keywords of a message body and recolors the rest of it with the sender's
+	 * style, if any. After a keyword the color in effect before it is restored.
+	 *
+	 * @param style   the sender's style, or null to keep the message's own colors
+	 * @param matches a buffer for the keyword matches, see {@link KeywordHighlighter#find}
+	 */
+	static String highlight(String value, HighlightStyle style, KeywordHighlighter keywords, int[] matches)
+	{
+		final int count = keywords.find(value, matches);
+		if (count == 0)
+		{
+			return style == null ? value : recolor(value, style);
+		}
+
+		final StringBuilder sb = new StringBuilder(value.length() + (count + 2) * 16);
+
+		// the color tag in effect at the current position, null for the chat's own color
+		String current = null;
+		if (style != null)
+		{
+			current = style.getOpenTag();
+			sb.append(current);
+		}
+
+		int match = 0;
+		int i = 0;
+		while (i < value.length())
+		{
+			if (match < count && i == matches[match * 3])
+			{
+				final int end = matches[match * 3 + 1];
+				sb.append(keywords.getStyle(matches[match * 3 + 2]).getOpenTag())
+					.append(value, i, end)
+					.append(current != null ? current : CLOSING_TAG);
+				match++;
+				i = end;
+				continue;
+			}
+
+			final int close = value.charAt(i) == '<' ? value.indexOf('>', i + 1) : -1;
+			if (close == -1)
+			{
+				sb.append(value.charAt(i++));
+				continue;
+			}
+
+			if (value.startsWith(CLOSING_TAG, i))
+			{
+				current = style != null ? style.getOpenTag() : null;
+				sb.append(current != null ? current : CLOSING_TAG);
+			}
+			else
+			{
+				if (value.startsWith("<col=", i))
+				{
+					current = value.substring(i, close + 1);
+				}
+				sb.append(value, i, close + 1);
+			}
+			i = close + 1;
+		}
+
+		if (style != null)
+		{
+			sb.append(style.getCloseTag());
+		}
+		return sb.toString();
+	}
+}
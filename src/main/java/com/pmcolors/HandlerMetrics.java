@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+/**
+ * Counts the events a handler has seen, how many of them matched a highlight and the time spent
+ * on them. Durations go into power of two buckets, which is precise enough to tell a microsecond
+ * from a millisecond and costs one add per event. Safe to record from any thread.
+ */
+public final class HandlerMetrics
+{
+	// bucket i holds durations in [2^(i-1), 2^i) nanoseconds, the last one everything longer
+	private static final int BUCKETS = 40;
+
+	@Getter
+	private final String name;
+
+	private final LongAdder events = new LongAdder();
+	private final LongAdder matches = new LongAdder();
+	private final LongAdder nanos = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+	HandlerMetrics(String name)
+	{
+		this.name = name;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			histogram[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records an event that started at {@code startNanos}, as returned by {@link System#nanoTime()}.
+	 */
+	void record(long startNanos, boolean matched)
+	{
+		final long duration = Math.max(0, System.nanoTime() - startNanos);
+		events.increment();
+		if (matched)
+		{
+			matches.increment();
+		}
+		nanos.add(duration);
+		histogram[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(duration))].increment();
+	}
+
+	/**
+	 * Records the size of what an event wrote, for the handlers that write.
+	 */
+	void addBytes(long count)
+	{
+		bytes.add(count);
+	}
+
+	public long getEvents()
+	{
+		return events.sum();
+	}
+
+	public long getMatches()
+	{
+		return matches.sum();
+	}
+
+	public long getBytes()
+	{
+		return bytes.sum();
+	}
+
+	public long getTotalMicros()
+	{
+		return TimeUnit.NANOSECONDS.toMicros(nanos.sum());
+	}
+
+	/**
+	 * The upper bound of the bucket holding the given percentile of the durations, in microseconds.
+	 *
+	 * @param percentile between 0 and 100
+	 * @return the bound, or 0 before the first event
+	 */
+	public double getPercentileMicros(double percentile)
+	{
+		final long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			counts[i] = histogram[i].sum();
+			total += counts[i];
+		}
+
+		final long rank = (long) Math.ceil(total * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			seen += counts[i];
+			if (seen > 0 && seen >= rank)
+			{
+				return (1L << i) / 1000.0;
+			}
+		}
+		return 0;
+	}
+
+	void reset()
+	{
+		events.reset();
+		matches.reset();
+		nanos.reset();
+		bytes.reset();
+		for (LongAdder bucket : histogram)
+		{
+			bucket.reset();
+		}
+	}
+}
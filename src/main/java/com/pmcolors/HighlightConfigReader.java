@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.Predicate;
+import lombok.Value;
+import net.runelite.client.util.ColorUtil;
+
+/**
+ * Streams highlighted players out of their json config without building an intermediate list or
+ * going through reflection. Entries are read one at a time and handed straight to a sink, and
+ * malformed entries are skipped instead of failing the whole load.
+ */
+final class HighlightConfigReader
+{
+	@Value
+	static class LoadResult
+	{
+		int loaded;
+		int dropped;
+	}
+
+	@FunctionalInterface
+	private interface ElementReader<T>
+	{
+		T read(JsonReader reader) throws IOException;
+	}
+
+	private HighlightConfigReader()
+	{
+	}
+
+	/**
+	 * Reads a json array of players, as stored by older versions under a single key.
+	 *
+	 * @param sink accepts a player, returning false if it was rejected as a duplicate
+	 */
+	static LoadResult readPlayers(Reader in, Predicate<PlayerHighlight> sink) throws IOException
+	{
+		return readArray(in, HighlightConfigReader::readPlayer, sink);
+	}
+
+	/**
+	 * Reads the json array of groups.
+	 *
+	 * @param sink accepts a group, returning false if it was rejected as a duplicate
+	 */
+	static LoadResult readGroups(Reader in, Predicate<HighlightGroup> sink) throws IOException
+	{
+		return readArray(in, HighlightConfigReader::readGroup, sink);
+	}
+
+	private static <T> LoadResult readArray(Reader in, ElementReader<T> elementReader, Predicate<T> sink) throws IOException
+	{
+		int loaded = 0;
+		int dropped = 0;
+
+		final JsonReader reader = new JsonReader(in);
+		reader.setLenient(true);
+
+		if (reader.peek() != JsonToken.BEGIN_ARRAY)
+		{
+			reader.skipValue();
+			return new LoadResult(0, 1);
+		}
+
+		reader.beginArray();
+		while (reader.hasNext())
+		{
+			final T element = elementReader.read(reader);
+			if (element != null && sink.test(element))
+			{
+				loaded++;
+			}
+			else
+			{
+				dropped++;
+			}
+		}
+		reader.endArray();
+
+		return new LoadResult(loaded, dropped);
+	}
+
+	/**
+	 * Reads a single player, returns null if the json does not describe a valid one.
+	 */
+	static PlayerHighlight readPlayer(String json) throws IOException
+	{
+		final JsonReader reader = new JsonReader(new StringReader(json));
+		reader.setLenient(true);
+		return readPlayer(reader);
+	}
+
+	/**
+	 * Reads the next value as a player, consuming it entirely even when it is malformed.
+	 */
+	private static PlayerHighlight readPlayer(JsonReader reader) throws IOException
+	{
+		if (reader.peek() != JsonToken.BEGIN_OBJECT)
+		{
+			reader.skipValue();
+			return null;
+		}
+
+		String name = null;
+		Color color = null;
+		boolean highlightUsername = false;
+		boolean highlightMessage = false;
+		boolean highlightLoggedInOut = false;
+		int groupId = PlayerHighlight.NO_GROUP;
+		boolean valid = true;
+
+		reader.beginObject();
+		while (reader.hasNext())
+		{
+			final String field = reader.nextName();
+			final JsonToken token = reader.peek();
+			switch (field)
+			{
+				case "name":
+					if (token == JsonToken.STRING)
+					{
+						name = reader.nextString();
+						continue;
+					}
+					break;
+				case "color":
+					color = readColor(reader);
+					valid &= color != null;
+					continue;
+				case "highlightUsername":
+					if (token == JsonToken.BOOLEAN)
+					{
+						highlightUsername = reader.nextBoolean();
+						continue;
+					}
+					break;
+				case "highlightMessage":
+					if (token == JsonToken.BOOLEAN)
+					{
+						highlightMessage = reader.nextBoolean();
+						continue;
+					}
+					break;
+				case "highlightLoggedInOut":
+					if (token == JsonToken.BOOLEAN)
+					{
+						highlightLoggedInOut = reader.nextBoolean();
+						continue;
+					}
+					break;
+				case "groupId":
+					if (token == JsonToken.NUMBER)
+					{
+						groupId = reader.nextInt();
+						continue;
+					}
+					break;
+				default:
+					// unknown fields are ignored to stay compatible with newer versions
+					reader.skipValue();
+					continue;
+			}
+
+			// a known field with the wrong type
+			reader.skipValue();
+			valid = false;
+		}
+		reader.endObject();
+
+		if (!valid || name == null || name.trim().isEmpty() || groupId < 0)
+		{
+			return null;
+		}
+
+		// a group member takes its style from the group
+		if (groupId != PlayerHighlight.NO_GROUP)
+		{
+			return PlayerHighlight.member(name, groupId);
+		}
+
+		if (color == null)
+		{
+			return null;
+		}
+		return new PlayerHighlight(name, color, highlightUsername, highlightMessage, highlightLoggedInOut);
+	}
+
+	/**
+	 * Reads the next value as a group, consuming it entirely even when it is malformed.
+	 */
+	private static HighlightGroup readGroup(JsonReader reader) throws IOException
+	{
+		if (reader.peek() != JsonToken.BEGIN_OBJECT)
+		{
+			reader.skipValue();
+			return null;
+		}
+
+		int id = 0;
+		String name = null;
+		Color color = null;
+		boolean highlightUsername = false;
+		boolean highlightMessage = false;
+		boolean highlightLoggedInOut = false;
+		boolean valid = true;
+
+		reader.beginObject();
+		while (reader.hasNext())
+		{
+			final String field = reader.nextName();
+			final JsonToken token = reader.peek();
+			switch (field)
+			{
+				case "id":
+					if (token == JsonToken.NUMBER)
+					{
+						id = reader.nextInt();
+						continue;
+					}
+					break;
+				case "name":
+					if (token == JsonToken.STRING)
+					{
+						name = reader.nextString();
+						continue;
+					}
+					break;
+				case "color":
+					color = readColor(reader);
+					valid &= color != null;
+					continue;
+				case "highlightUsername":
+					if (token == JsonToken.BOOLEAN)
+					{
+						highlightUsername = reader.nextBoolean();
+						continue;
+					}
+					break;
+				case "highlightMessage":
+					if (token == JsonToken.BOOLEAN)
+					{
+						highlightMessage = reader.nextBoolean();
+						continue;
+					}
+					break;
+				case "highlightLoggedInOut":
+					if (token == JsonToken.BOOLEAN)
+					{
+						highlightLoggedInOut = reader.nextBoolean();
+						continue;
+					}
+					break;
+				default:
+					reader.skipValue();
+					continue;
+			}
+
+			reader.skipValue();
+			valid = false;
+		}
+		reader.endObject();
+
+		if (!valid || id <= 0 || name == null || name.trim().isEmpty() || color == null)
+		{
+			return null;
+		}
+		return new HighlightGroup(id, name, color, highlightUsername, highlightMessage, highlightLoggedInOut);
+	}
+
+	/**
+	 * Reads a color either as serialized by Gson, {"value": argb, ...}, or as a hex string.
+	 */
+	static Color readColor(JsonReader reader) throws IOException
+	{
+		final JsonToken token = reader.peek();
+		if (token == JsonToken.STRING)
+		{
+			final String hex = reader.nextString();
+			return ColorUtil.fromHex(hex);
+		}
+
+		if (token != JsonToken.BEGIN_OBJECT)
+		{
+			reader.skipValue();
+			return null;
+		}
+
+		Color color = null;
+		reader.beginObject();
+		while (reader.hasNext())
+		{
+			if (reader.nextName().equals("value") && reader.peek() == JsonToken.NUMBER)
+			{
+				color = new Color(reader.nextInt(), true);
+			}
+			else
+			{
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return color;
+	}
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import lombok.Value;
+import net.runelite.client.util.ColorUtil;
+
+/**
+ * Streams highlights to and from files people can edit by hand, as CSV or json. A row names a
+ * player and optionally its color, flags and group by name; whatever a row leaves out is up to
+ * the importer. Rows are handed to a sink one at a time as they are read.
+ */
+public final class HighlightExchange
+{
+	private static final String[] CSV_HEADER = {"name", "color", "highlightUsername", "highlightMessage",
+		"highlightLoggedInOut", "group"};
+
+	public enum Format
+	{
+		CSV,
+		JSON;
+
+		/**
+		 * Picks the format from the file's extension, CSV unless it ends in .json.
+		 */
+		public static Format of(File file)
+		{
+			return file.getName().toLowerCase().endsWith(".json") ? JSON : CSV;
+		}
+	}
+
+	/**
+	 * One imported player, the fields it leaves out are null.
+	 */
+	@Value
+	static class Row
+	{
+		String name;
+		Color color;
+		Boolean highlightUsername;
+		Boolean highlightMessage;
+		Boolean highlightLoggedInOut;
+		String group;
+	}
+
+	/**
+	 * What an import did to the registry.
+	 */
+	@Value
+	public static class Result
+	{
+		int added;
+		int updated;
+		int removed;
+		int dropped;
+	}
+
+	private HighlightExchange()
+	{
+	}
+
+	/**
+	 * Writes every player of the snapshot with its resolved style and the name of its group.
+	 */
+	static void write(Writer out, HighlightSnapshot snapshot, Format format) throws IOException
+	{
+		if (format == Format.JSON)
+		{
+			writeJson(out, snapshot);
+		}
+		else
+		{
+			writeCsv(out, snapshot);
+		}
+	}
+
+	/**
+	 * Reads rows, skipping malformed ones.
+	 *
+	 * @param sink accepts a row, returning false if it was rejected
+	 */
+	static HighlightConfigReader.LoadResult read(Reader in, Format format, Predicate<Row> sink) throws IOException
+	{
+		return format == Format.JSON ? readJson(in, sink) : readCsv(in, sink);
+	}
+
+	private static void writeJson(Writer out, HighlightSnapshot snapshot) throws IOException
+	{
+		final JsonWriter writer = new JsonWriter(out);
+		writer.setIndent("  ");
+		writer.beginArray();
+		for (PlayerHighlight player : snapshot.getPlayers())
+		{
+			final HighlightStyle style = snapshot.styleOf(player);
+			if (style == null)
+			{
+				continue;
+			}
+
+			writer.beginObject()
+				.name("name").value(player.getName())
+				.name("color").value("#" + ColorUtil.colorToHexCode(style.getColor()))
+				.name("highlightUsername").value(style.isHighlightUsername())
+				.name("highlightMessage").value(style.isHighlightMessage())
+				.name("highlightLoggedInOut").value(style.isHighlightLoggedInOut());
+			if (player.isGrouped())
+			{
+				writer.name("group").value(snapshot.getGroup(player.getGroupId()).getName());
+			}
+			writer.endObject();
+		}
+		writer.endArray();
+		writer.flush();
+	}
+
+	private static void writeCsv(Writer out, HighlightSnapshot snapshot) throws IOException
+	{
+		out.write(String.join(",", CSV_HEADER));
+		out.write('\n');
+		for (PlayerHighlight player : snapshot.getPlayers())
+		{
+			final HighlightStyle style = snapshot.styleOf(player);
+			if (style == null)
+			{
+				continue;
+			}
+
+			writeCsvField(out, player.getName());
+			out.write(",#" + ColorUtil.colorToHexCode(style.getColor()) + "," + style.isHighlightUsername() + ","
+				+ style.isHighlightMessage() + "," + style.isHighlightLoggedInOut() + ",");
+			if (player.isGrouped())
+			{
+				writeCsvField(out, snapshot.getGroup(player.getGroupId()).getName());
+			}
+			out.write('\n');
+		}
+		out.flush();
+	}
+
+	private static void writeCsvField(Writer out, String value) throws IOException
+	{
+		if (value.indexOf(',') == -1 && value.indexOf('"') == -1)
+		{
+			out.write(value);
+			return;
+		}
+
+		out.write('"');
+		out.write(value.replace("\"", "\"\""));
+		out.write('"');
+	}
+
+	private static HighlightConfigReader.LoadResult readCsv(Reader in, Predicate<Row> sink) throws IOException
+	{
+		final BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+		final List<String> fields = new ArrayList<>(CSV_HEADER.length);
+		int loaded = 0;
+		int dropped = 0;
+		boolean first = true;
+
+		String line;
+		while ((line = reader.readLine()) != null)
+		{
+			if (line.trim().isEmpty())
+			{
+				continue;
+			}
+
+			splitCsvLine(line, fields);
+			if (first)
+			{
+				first = false;
+				if (fields.get(0).equalsIgnoreCase(CSV_HEADER[0]))
+				{
+					continue;
+				}
+			}
+
+			final Row row = toRow(fields);
+			if (row != null && sink.test(row))
+			{
+				loaded++;
+			}
+			else
+			{
+				dropped++;
+			}
+		}
+
+		return new HighlightConfigReader.LoadResult(loaded, dropped);
+	}
+
+	/**
+	 * Splits a line on commas outside of double quotes, a doubled quote inside quotes is a quote.
+	 */
+	private static void splitCsvLine(String line, List<String> fields)
+	{
+		fields.clear();
+		final StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+
+		for (int i = 0; i < line.length(); i++)
+		{
+			final char c = line.charAt(i);
+			if (quoted)
+			{
+				if (c != '"')
+				{
+					field.append(c);
+				}
+				else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+				{
+					field.append('"');
+					i++;
+				}
+				else
+				{
+					quoted = false;
+				}
+			}
+			else if (c == '"')
+			{
+				quoted = true;
+			}
+			else if (c == ',')
+			{
+				fields.add(field.toString().trim());
+				field.setLength(0);
+			}
+			else
+			{
+				field.append(c);
+			}
+		}
+		fields.add(field.toString().trim());
+	}
+
+	private static Row toRow(List<String> fields)
+	{
+		final String name = fields.get(0);
+		if (name.isEmpty())
+		{
+			return null;
+		}
+
+		Color color = null;
+		if (fields.size() > 1 && !fields.get(1).isEmpty())
+		{
+			color = ColorUtil.fromHex(fields.get(1));
+			if (color == null)
+			{
+				return null;
+			}
+		}
+
+		final Boolean[] flags = new Boolean[3];
+		for (int i = 0; i < flags.length; i++)
+		{
+			final String flag = fields.size() > i + 2 ? fields.get(i + 2) : "";
+			if (flag.equalsIgnoreCase("true"))
+			{
+				flags[i] = true;
+			}
+			else if (flag.equalsIgnoreCase("false"))
+			{
+				flags[i] = false;
+			}
+			else if (!flag.isEmpty())
+			{
+				return null;
+			}
+		}
+
+		final String group = fields.size() > 5 && !fields.get(5).isEmpty() ? fields.get(5) : null;
+		return new Row(name, color, flags[0], flags[1], flags[2], group);
+	}
+
+	private static HighlightConfigReader.LoadResult readJson(Reader in, Predicate<Row> sink) throws IOException
+	{
+		int loaded = 0;
+		int dropped = 0;
+
+		final JsonReader reader = new JsonReader(in);
+		reader.setLenient(true);
+
+		if (reader.peek() != JsonToken.BEGIN_ARRAY)
+		{
+			reader.skipValue();
+			return new HighlightConfigReader.LoadResult(0, 1);
+		}
+
+		reader.beginArray();
+		while (reader.hasNext())
+		{
+			final Row row = readJsonRow(reader);
+			if (row != null && sink.test(row))
+			{
+				loaded++;
+			}
+			else
+			{
+				dropped++;
+			}
+		}
+		reader.endArray();
+
+		return new HighlightConfigReader.LoadResult(loaded, dropped);
+	}
+
+	/**
+	 * Reads the next value as a row, consuming it entirely even when it is malformed.
+	 */
+	private static Row readJsonRow(JsonReader reader) throws IOException
+	{
+		if (reader.peek() != JsonToken.BEGIN_OBJECT)
+		{
+			reader.skipValue();
+			return null;
+		}
+
+		String name = null;
+		Color color = null;
+		Boolean highlightUsername = null;
+		Boolean highlightMessage = null;
+		Boolean highlightLoggedInOut = null;
+		String group = null;
+		boolean valid = true;
+
+		reader.beginObject();
+		while (reader.hasNext())
+		{
+			final String field = reader.nextName();
+			final JsonToken token = reader.peek();
+			switch (field)
+			{
+				case "name":
+					if (token == JsonToken.STRING)
+					{
+						name = reader.nextString().trim();
+						continue;
+					}
+					break;
+				case "color":
+					color = HighlightConfigReader.readColor(reader);
+					valid &= color != null;
+					continue;
+				case "highlightUsername":
+					if (token == JsonToken.BOOLEAN)
+					{
+						highlightUsername = reader.nextBoolean();
+						continue;
+					}
+					break;
+				case "highlightMessage":
+					if (token == JsonToken.BOOLEAN)
+					{
+						highlightMessage = reader.nextBoolean();
+						continue;
+					}
+					break;
+				case "highlightLoggedInOut":
+					if (token == JsonToken.BOOLEAN)
+					{
+						highlightLoggedInOut = reader.nextBoolean();
+						continue;
+					}
+					break;
+				case "group":
+					if (token == JsonToken.STRING)
+					{
+						group = reader.nextString().trim();
+						continue;
+					}
+					if (token == JsonToken.NULL)
+					{
+						reader.nextNull();
+						continue;
+					}
+					break;
+				default:
+					reader.skipValue();
+					continue;
+			}
+
+			reader.skipValue();
+			valid = false;
+		}
+		reader.endObject();
+
+		if (!valid || name == null || name.isEmpty())
+		{
+			return null;
+		}
+		return new Row(name, color, highlightUsername, highlightMessage, highlightLoggedInOut,
+			group == null || group.isEmpty() ? null : group);
+	}
+}
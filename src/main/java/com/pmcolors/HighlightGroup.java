@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.awt.Color;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.Value;
+
+/**
+ * A named group of highlighted players sharing one style, so recoloring the group is a single
+ * change that every member picks up at once. Instances are immutable like {@link PlayerHighlight}.
+ */
+@Value
+@EqualsAndHashCode(exclude = "style")
+@ToString(exclude = "style")
+public class HighlightGroup
+{
+    /**
+     * Referenced by the members, always positive.
+     */
+    private final int id;
+    private final String name;
+    private final Color color;
+    private final boolean highlightUsername;
+    private final boolean highlightMessage;
+    private final boolean highlightLoggedInOut;
+
+    // not serialized, derived from the color and flags
+    private final transient HighlightStyle style;
+
+    public HighlightGroup(int id, String name, Color color, boolean highlightUsername, boolean highlightMessage, boolean highlightLoggedInOut)
+    {
+        this.id = id;
+        this.name = name;
+        this.color = color;
+        this.highlightUsername = highlightUsername;
+        this.highlightMessage = highlightMessage;
+        this.highlightLoggedInOut = highlightLoggedInOut;
+        this.style = HighlightStyle.of(color, highlightUsername, highlightMessage, highlightLoggedInOut);
+    }
+
+    public HighlightGroup withName(String name)
+    {
+        return new HighlightGroup(id, name, color, highlightUsername, highlightMessage, highlightLoggedInOut);
+    }
+
+    public HighlightGroup withColor(Color color)
+    {
+        return new HighlightGroup(id, name, color, highlightUsername, highlightMessage, highlightLoggedInOut);
+    }
+
+    public HighlightGroup withHighlightUsername(boolean highlightUsername)
+    {
+        return new HighlightGroup(id, name, color, highlightUsername, highlightMessage, highlightLoggedInOut);
+    }
+
+    public HighlightGroup withHighlightMessage(boolean highlightMessage)
+    {
+        return new HighlightGroup(id, name, color, highlightUsername, highlightMessage, highlightLoggedInOut);
+    }
+
+    public HighlightGroup withHighlightLoggedInOut(boolean highlightLoggedInOut)
+    {
+        return new HighlightGroup(id, name, color, highlightUsername, highlightMessage, highlightLoggedInOut);
+    }
+}
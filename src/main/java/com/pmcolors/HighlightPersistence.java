@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Coalesces config writes. Changes only mark a player dirty, and a write of each dirty player is
+ * scheduled on the executor once per debounce window, keeping serialization off the EDT. Every
+ * player is written from an immutable snapshot, or removed when it is no longer highlighted.
+ */
+class HighlightPersistence
+{
+	static final long DEBOUNCE_MILLIS = 500;
+
+	private final ScheduledExecutorService executor;
+	private final Function<String, PlayerHighlight> snapshot;
+	private final BiConsumer<String, PlayerHighlight> writer;
+	private final Runnable groupWriter;
+
+	private final Object writeLock = new Object();
+
+	private Set<String> dirty = new LinkedHashSet<>();
+	private boolean groupsDirty;
+	private boolean closed;
+	private ScheduledFuture<?> pendingWrite;
+	private volatile Thread writingThread;
+
+	/**
+	 * @param snapshot returns the player with the given canonical name, or null if there is none
+	 * @param writer      saves the player under its canonical name, or removes it when passed null
+	 * @param groupWriter saves every group at once
+	 */
+	HighlightPersistence(ScheduledExecutorService executor, Function<String, PlayerHighlight> snapshot,
+		BiConsumer<String, PlayerHighlight> writer, Runnable groupWriter)
+	{
+		this.executor = executor;
+		this.snapshot = snapshot;
+		this.writer = writer;
+		this.groupWriter = groupWriter;
+	}
+
+	synchronized void markDirty(String canonicalName)
+	{
+		if (closed)
+		{
+			return;
+		}
+
+		dirty.add(canonicalName);
+		schedule();
+	}
+
+	synchronized void markGroupsDirty()
+	{
+		if (closed)
+		{
+			return;
+		}
+
+		groupsDirty = true;
+		schedule();
+	}
+
+	private void schedule()
+	{
+		if (pendingWrite == null)
+		{
+			pendingWrite = executor.schedule(this::flush, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Writes every player changed since the last write, and the groups if any of them changed.
+	 */
+	void flush()
+	{
+		// writes are serialized so an older snapshot can never overwrite a newer one
+		synchronized (writeLock)
+		{
+			final Set<String> names;
+			final boolean writeGroups;
+			synchronized (this)
+			{
+				pendingWrite = null;
+				if (dirty.isEmpty() && !groupsDirty)
+				{
+					return;
+				}
+
+				names = dirty;
+				dirty = new LinkedHashSet<>();
+				writeGroups = groupsDirty;
+				groupsDirty = false;
+			}
+
+			writingThread = Thread.currentThread();
+			try
+			{
+				// groups first, so a member is never saved before the group it refers to
+				if (writeGroups)
+				{
+					groupWriter.run();
+				}
+
+				for (String name : names)
+				{
+					writer.accept(name, snapshot.apply(name));
+				}
+			}
+			finally
+			{
+				writingThread = null;
+			}
+		}
+	}
+
+	/**
+	 * Whether the caller is inside one of our own writes, used to ignore the config change events they cause.
+	 */
+	boolean isWriting()
+	{
+		return writingThread == Thread.currentThread();
+	}
+
+	/**
+	 * Writes any pending changes and ignores all further ones.
+	 */
+	void close()
+	{
+		synchronized (this)
+		{
+			closed = true;
+			if (pendingWrite != null)
+			{
+				pendingWrite.cancel(false);
+			}
+		}
+
+		flush();
+	}
+}
@@ -0,0 +1,508 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Holds the highlighted players in the order they were added, together with a hash index
+ * on their canonical name so the chat and menu handlers can resolve a player in a single probe.
+ * Both are published together as an immutable {@link HighlightSnapshot}: readers never lock,
+ * writers copy the current snapshot under a lock and publish the changed copy as a whole.
+ */
+public class HighlightRegistry
+{
+	private final AtomicReference<HighlightSnapshot> snapshot = new AtomicReference<>(HighlightSnapshot.EMPTY);
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final List<HighlightListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Normalizes a (possibly tagged) display name into the key used by the index.
+	 */
+	public static String canonicalName(String name)
+	{
+		return CanonicalNames.canonicalize(name);
+	}
+
+	public HighlightSnapshot getSnapshot()
+	{
+		return snapshot.get();
+	}
+
+	/**
+	 * Looks up a player by an already canonical name.
+	 */
+	public PlayerHighlight get(String canonicalName)
+	{
+		return snapshot.get().get(canonicalName);
+	}
+
+	/**
+	 * Looks up a player by a canonical name held in the first {@code length} chars of a buffer.
+	 */
+	PlayerHighlight get(char[] canonicalName, int length)
+	{
+		return snapshot.get().get(canonicalName, length);
+	}
+
+	/**
+	 * Looks up a player by a raw name as it appears in chat or a menu target.
+	 */
+	public PlayerHighlight find(String name)
+	{
+		return snapshot.get().find(name);
+	}
+
+	/**
+	 * Adds a player, returns false if a player with the same canonical name is already present.
+	 */
+	public boolean add(PlayerHighlight highlight)
+	{
+		try (Transaction transaction = begin())
+		{
+			return transaction.add(highlight);
+		}
+	}
+
+	/**
+	 * Removes the player with the same canonical name, returns false if there is none.
+	 */
+	public boolean remove(PlayerHighlight highlight)
+	{
+		try (Transaction transaction = begin())
+		{
+			return transaction.remove(highlight);
+		}
+	}
+
+	/**
+	 * Replaces the player with the same canonical name by the given one, returns false if there is
+	 * none or it is unchanged.
+	 */
+	public boolean update(PlayerHighlight highlight)
+	{
+		try (Transaction transaction = begin())
+		{
+			return transaction.update(highlight);
+		}
+	}
+
+	/**
+	 * Starts a batch of changes that is published as a single snapshot when the transaction is
+	 * closed, so a bulk load copies the players once instead of once per player. Writers are
+	 * serialized, the transaction must be closed on the thread that began it.
+	 */
+	public Transaction begin()
+	{
+		writeLock.lock();
+		return new Transaction(snapshot.get());
+	}
+
+	/**
+	 * Registers a listener and returns the players it will receive changes relative to.
+	 */
+	public List<PlayerHighlight> addListener(HighlightListener listener)
+	{
+		writeLock.lock();
+		try
+		{
+			listeners.add(listener);
+			return snapshot.get().getPlayers();
+		}
+		finally
+		{
+			writeLock.unlock();
+		}
+	}
+
+	public void removeListener(HighlightListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	int getListenerCount()
+	{
+		return listeners.size();
+	}
+
+	/**
+	 * Removes every player without notifying the listeners, only used when the plugin shuts down.
+	 */
+	public void clear()
+	{
+		writeLock.lock();
+		try
+		{
+			snapshot.set(new HighlightSnapshot(snapshot.get().getVersion() + 1, Collections.emptyList(), new NameIndex<>(),
+				Collections.emptyList(), PatternRules.EMPTY));
+		}
+		finally
+		{
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * The players in the order they were added, as of the current snapshot.
+	 */
+	public List<PlayerHighlight> getPlayers()
+	{
+		return snapshot.get().getPlayers();
+	}
+
+	public int size()
+	{
+		return snapshot.get().size();
+	}
+
+	public boolean isEmpty()
+	{
+		return snapshot.get().isEmpty();
+	}
+
+	/**
+	 * A batch of changes to the registry. The snapshot is only copied on the first change, and
+	 * the listeners are told about the changes after the result is published.
+	 */
+	public final class Transaction implements AutoCloseable
+	{
+		// past this many player events the listeners get the whole list instead
+		private static final int RESET_EVENTS = 64;
+
+		private final HighlightSnapshot base;
+		private final List<Consumer<HighlightListener>> events = new ArrayList<>();
+
+		// copies of the base snapshot, made on the first change
+		private List<PlayerHighlight> players;
+		private NameIndex<PlayerHighlight> index;
+		private List<HighlightGroup> groups;
+		private PatternRules rules;
+
+		private boolean closed;
+
+		private Transaction(HighlightSnapshot base)
+		{
+			this.base = base;
+		}
+
+		/**
+		 * Adds a player, returns false if a player with the same canonical name is already present.
+		 */
+		public boolean add(PlayerHighlight highlight)
+		{
+			if (highlight == null || highlight.getName() == null)
+			{
+				return false;
+			}
+
+			final String name = canonicalName(highlight.getName());
+			if (lookup(name) != null)
+			{
+				return false;
+			}
+
+			copy();
+			index.putIfAbsent(name, highlight);
+			players.add(highlight);
+
+			final int i = players.size() - 1;
+			events.add(listener -> listener.playerAdded(i, highlight));
+			return true;
+		}
+
+		/**
+		 * Removes the player with the same canonical name, returns false if there is none.
+		 */
+		public boolean remove(PlayerHighlight highlight)
+		{
+			final String name = canonicalName(highlight.getName());
+			final PlayerHighlight existing = lookup(name);
+			if (existing == null)
+			{
+				return false;
+			}
+
+			copy();
+			final int i = indexOf(existing);
+			players.remove(i);
+			index.remove(name, existing);
+
+			events.add(listener -> listener.playerRemoved(i, existing));
+			return true;
+		}
+
+		/**
+		 * Replaces the player with the same canonical name, returns false if there is none or it is unchanged.
+		 */
+		public boolean update(PlayerHighlight highlight)
+		{
+			final String name = canonicalName(highlight.getName());
+			final PlayerHighlight existing = lookup(name);
+			if (existing == null || existing.equals(highlight))
+			{
+				return false;
+			}
+
+			copy();
+			final int i = indexOf(existing);
+			players.set(i, highlight);
+			index.put(name, highlight);
+
+			events.add(listener -> listener.playerChanged(i, highlight));
+			return true;
+		}
+
+		/**
+		 * Adds a group or replaces the group with the same id. Members pick up the new style as
+		 * soon as the transaction is published.
+		 */
+		public void putGroup(HighlightGroup group)
+		{
+			copyGroups();
+			for (int i = 0; i < groups.size(); i++)
+			{
+				if (groups.get(i).getId() == group.getId())
+				{
+					groups.set(i, group);
+					return;
+				}
+			}
+			groups.add(group);
+		}
+
+		/**
+		 * Removes a group, its members keep its style as their own.
+		 *
+		 * @return the members that were taken out of the group
+		 */
+		public List<PlayerHighlight> removeGroup(int id)
+		{
+			final HighlightGroup group = getGroup(id);
+			final List<PlayerHighlight> released = new ArrayList<>();
+			if (group == null)
+			{
+				return released;
+			}
+
+			copyGroups();
+			groups.remove(group);
+
+			// one pass that replaces members in place, an update per member would search the list each time
+			final List<PlayerHighlight> current = players != null ? players : base.getPlayers();
+			for (int i = 0; i < current.size(); i++)
+			{
+				final PlayerHighlight player = current.get(i);
+				if (player.getGroupId() != id)
+				{
+					continue;
+				}
+
+				copy();
+				final PlayerHighlight ungrouped = player.withStyle(group.getStyle());
+				players.set(i, ungrouped);
+				index.put(canonicalName(player.getName()), ungrouped);
+
+				final int at = i;
+				events.add(listener -> listener.playerChanged(at, ungrouped));
+				released.add(ungrouped);
+			}
+			return released;
+		}
+
+		/**
+		 * Replaces the pattern rules.
+		 */
+		void setRules(PatternRules rules)
+		{
+			checkOpen();
+			this.rules = rules;
+		}
+
+		/**
+		 * Looks up a group, including the changes made so far.
+		 */
+		public HighlightGroup getGroup(int id)
+		{
+			if (groups == null)
+			{
+				return base.getGroup(id);
+			}
+
+			for (HighlightGroup group : groups)
+			{
+				if (group.getId() == id)
+				{
+					return group;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Looks up a group by name ignoring case, including the changes made so far.
+		 */
+		public HighlightGroup findGroup(String name)
+		{
+			for (HighlightGroup group : groups != null ? groups : base.getGroups())
+			{
+				if (group.getName().equalsIgnoreCase(name))
+				{
+					return group;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * @return an id no group uses yet
+		 */
+		public int nextGroupId()
+		{
+			int id = 0;
+			for (HighlightGroup group : groups != null ? groups : base.getGroups())
+			{
+				id = Math.max(id, group.getId());
+			}
+			if (id < Integer.MAX_VALUE)
+			{
+				return id + 1;
+			}
+
+			// an imported group took the largest id, take the first free one instead
+			id = 1;
+			while (getGroup(id) != null)
+			{
+				id++;
+			}
+			return id;
+		}
+
+		/**
+		 * Looks up a player by canonical name, including the changes made so far.
+		 */
+		public PlayerHighlight get(String canonicalName)
+		{
+			return lookup(canonicalName);
+		}
+
+		/**
+		 * Publishes the changes and releases the registry for the next writer.
+		 */
+		@Override
+		public void close()
+		{
+			if (closed)
+			{
+				return;
+			}
+			closed = true;
+
+			try
+			{
+				if (players != null || groups != null || rules != null)
+				{
+					snapshot.set(new HighlightSnapshot(base.getVersion() + 1,
+						players != null ? Collections.unmodifiableList(players) : base.getPlayers(),
+						index != null ? index : base.getIndex(),
+						groups != null ? Collections.unmodifiableList(groups) : base.getGroups(),
+						rules != null ? rules : base.getRules()));
+
+					final List<PlayerHighlight> published = snapshot.get().getPlayers();
+					for (HighlightListener listener : listeners)
+					{
+						if (events.size() > RESET_EVENTS)
+						{
+							listener.playersReset(published);
+						}
+						else
+						{
+							events.forEach(event -> event.accept(listener));
+						}
+						if (groups != null)
+						{
+							listener.groupsChanged(snapshot.get().getGroups());
+						}
+					}
+				}
+			}
+			finally
+			{
+				writeLock.unlock();
+			}
+		}
+
+		private PlayerHighlight lookup(String canonicalName)
+		{
+			return index != null ? index.get(canonicalName) : base.get(canonicalName);
+		}
+
+		private void copy()
+		{
+			if (players == null)
+			{
+				checkOpen();
+				players = new ArrayList<>(base.getPlayers());
+				index = base.getIndex().copy();
+			}
+		}
+
+		private void copyGroups()
+		{
+			if (groups == null)
+			{
+				checkOpen();
+				groups = new ArrayList<>(base.getGroups());
+			}
+		}
+
+		private void checkOpen()
+		{
+			if (closed)
+			{
+				throw new IllegalStateException("transaction already closed");
+			}
+		}
+
+		private int indexOf(PlayerHighlight highlight)
+		{
+			for (int i = 0; i < players.size(); i++)
+			{
+				if (players.get(i) == highlight)
+				{
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * An immutable view of the highlighted players at one point in time. The registry publishes a
+ * new snapshot for every change, so a reader can resolve players without locking and never sees
+ * a change half applied.
+ */
+@Getter
+public final class HighlightSnapshot
+{
+	static final HighlightSnapshot EMPTY = new HighlightSnapshot(0, Collections.emptyList(), new NameIndex<>(), Collections.emptyList(),
+		PatternRules.EMPTY);
+
+	/**
+	 * Increases with every published change, so anything derived from a snapshot can tell it is stale.
+	 */
+	private final long version;
+
+	/**
+	 * The players in the order they were added.
+	 */
+	private final List<PlayerHighlight> players;
+
+	@Getter(AccessLevel.PACKAGE)
+	private final NameIndex<PlayerHighlight> index;
+
+	/**
+	 * The groups in the order they were created.
+	 */
+	private final List<HighlightGroup> groups;
+
+	// the group ids in ascending order and the group of each, ids come from config and may be anything
+	@Getter(AccessLevel.NONE)
+	private final int[] groupIds;
+	@Getter(AccessLevel.NONE)
+	private final HighlightGroup[] groupsById;
+
+	/**
+	 * Matches the names that are not highlighted by name.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final PatternRules rules;
+
+	// the style of each rule, resolved against the groups of this snapshot
+	@Getter(AccessLevel.NONE)
+	private final HighlightStyle[] ruleStyles;
+
+	HighlightSnapshot(long version, List<PlayerHighlight> players, NameIndex<PlayerHighlight> index, List<HighlightGroup> groups,
+		PatternRules rules)
+	{
+		this.version = version;
+		this.players = players;
+		this.index = index;
+		this.groups = groups;
+		this.rules = rules;
+
+		final HighlightGroup[] sorted = groups.toArray(new HighlightGroup[0]);
+		Arrays.sort(sorted, Comparator.comparingInt(HighlightGroup::getId));
+		groupIds = new int[sorted.length];
+		for (int i = 0; i < sorted.length; i++)
+		{
+			groupIds[i] = sorted[i].getId();
+		}
+		groupsById = sorted;
+
+		ruleStyles = new HighlightStyle[rules.getRules().size()];
+		for (int i = 0; i < ruleStyles.length; i++)
+		{
+			final String groupName = rules.getRules().get(i).getGroup();
+			if (groupName == null)
+			{
+				ruleStyles[i] = rules.getDefaultStyle();
+				continue;
+			}
+
+			for (HighlightGroup group : groups)
+			{
+				if (group.getName().equalsIgnoreCase(groupName))
+				{
+					ruleStyles[i] = group.getStyle();
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Looks up a player by an already canonical name.
+	 */
+	public PlayerHighlight get(String canonicalName)
+	{
+		return index.get(canonicalName);
+	}
+
+	/**
+	 * Looks up a player by a canonical name held in the first {@code length} chars of a buffer.
+	 */
+	PlayerHighlight get(char[] canonicalName, int length)
+	{
+		return index.get(canonicalName, length);
+	}
+
+	/**
+	 * Looks up a player by a raw name as it appears in chat or a menu target.
+	 */
+	public PlayerHighlight find(String name)
+	{
+		if (name == null)
+		{
+			return null;
+		}
+
+		return index.get(CanonicalNames.canonicalize(name));
+	}
+
+	/**
+	 * Resolves the style that applies to a player of this snapshot, its group's style for a group member.
+	 *
+	 * @return the style, or null if the player is null or its group is gone
+	 */
+	public HighlightStyle styleOf(PlayerHighlight player)
+	{
+		if (player == null)
+		{
+			return null;
+		}
+
+		if (!player.isGrouped())
+		{
+			return player.getStyle();
+		}
+
+		final HighlightGroup group = getGroup(player.getGroupId());
+		return group == null ? null : group.getStyle();
+	}
+
+	/**
+	 * Looks up the style for a raw name as it appears in chat or a menu target. A player highlighted
+	 * by name takes precedence over the pattern rules.
+	 */
+	public HighlightStyle findStyle(String name)
+	{
+		if (name == null)
+		{
+			return null;
+		}
+
+		final String canonicalName = CanonicalNames.canonicalize(name);
+		final PlayerHighlight player = index.get(canonicalName);
+		return player != null ? styleOf(player) : ruleStyle(canonicalName);
+	}
+
+	/**
+	 * Resolves the style of the first pattern rule matching a canonical name.
+	 *
+	 * @return the style, or null if no rule matches or the rule's group is gone
+	 */
+	HighlightStyle ruleStyle(String canonicalName)
+	{
+		final int rule = rules.match(canonicalName);
+		return rule == -1 ? null : ruleStyles[rule];
+	}
+
+	/**
+	 * @return the group with the id, or null if there is none
+	 */
+	public HighlightGroup getGroup(int id)
+	{
+		final int i = Arrays.binarySearch(groupIds, id);
+		return i >= 0 ? groupsById[i] : null;
+	}
+
+	public int size()
+	{
+		return players.size();
+	}
+
+	public boolean isEmpty()
+	{
+		return players.isEmpty();
+	}
+}
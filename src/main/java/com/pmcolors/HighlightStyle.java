@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import lombok.Getter;
+import net.runelite.client.util.ColorUtil;
+
+import java.awt.Color;
+
+/**
+ * How a highlighted player is shown: which parts of their messages are highlighted, and the
+ * pre-rendered chat tags for the color, built once per style instead of once per message.
+ */
+@Getter
+public final class HighlightStyle
+{
+	private final Color color;
+	private final String openTag;
+	private final String closeTag;
+	private final boolean highlightUsername;
+	private final boolean highlightMessage;
+	private final boolean highlightLoggedInOut;
+
+	private HighlightStyle(Color color, boolean highlightUsername, boolean highlightMessage, boolean highlightLoggedInOut)
+	{
+		this.color = color;
+		this.openTag = ColorUtil.colorTag(color);
+		this.closeTag = ColorUtil.CLOSING_COLOR_TAG;
+		this.highlightUsername = highlightUsername;
+		this.highlightMessage = highlightMessage;
+		this.highlightLoggedInOut = highlightLoggedInOut;
+	}
+
+	public static HighlightStyle of(Color color, boolean highlightUsername, boolean highlightMessage, boolean highlightLoggedInOut)
+	{
+		return new HighlightStyle(color, highlightUsername, highlightMessage, highlightLoggedInOut);
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import net.runelite.client.util.ColorUtil;
+
+/**
+ * Keywords highlighted inside private message bodies. Every keyword is compiled into one
+ * {@link AhoCorasick} automaton, so a message is scanned once no matter how many keywords there
+ * are. Keywords match whole words, ignoring case, and never inside a tag.
+ */
+final class KeywordHighlighter
+{
+	static final KeywordHighlighter EMPTY = new KeywordHighlighter(new ArrayList<>(), new ArrayList<>());
+
+	/**
+	 * The most matches reported for one message, further keywords are left as they are.
+	 */
+	static final int MAX_MATCHES = 32;
+
+	private final String[] keywords;
+	private final HighlightStyle[] styles;
+	private final AhoCorasick automaton = new AhoCorasick();
+
+	private KeywordHighlighter(List<String> keywords, List<HighlightStyle> styles)
+	{
+		this.keywords = keywords.toArray(new String[0]);
+		this.styles = styles.toArray(new HighlightStyle[0]);
+
+		for (int i = 0; i < this.keywords.length; i++)
+		{
+			automaton.add(this.keywords[i], i);
+		}
+		automaton.build();
+	}
+
+	/**
+	 * Parses one keyword per line, optionally followed by {@code = #hex} to use its own color.
+	 */
+	static KeywordHighlighter parse(String text, Color defaultColor)
+	{
+		final List<String> keywords = new ArrayList<>();
+		final List<HighlightStyle> styles = new ArrayList<>();
+		final HighlightStyle defaultStyle = HighlightStyle.of(defaultColor, false, true, false);
+
+		if (text != null)
+		{
+			for (String line : text.split("\n"))
+			{
+				final int separator = line.lastIndexOf('=');
+				final Color color = separator == -1 ? null : ColorUtil.fromHex(line.substring(separator + 1).trim());
+				final String keyword = (color == null ? line : line.substring(0, separator)).trim().toLowerCase(Locale.ROOT);
+				if (!keyword.isEmpty())
+				{
+					keywords.add(keyword);
+					styles.add(color == null ? defaultStyle : HighlightStyle.of(color, false, true, false));
+				}
+			}
+		}
+
+		return new KeywordHighlighter(keywords, styles);
+	}
+
+	boolean isEmpty()
+	{
+		return keywords.length == 0;
+	}
+
+	HighlightStyle getStyle(int keyword)
+	{
+		return styles[keyword];
+	}
+
+	/**
+	 * Finds the keywords in a message, skipping its tags. Overlapping matches resolve to the one
+	 * starting first, then the longest.
+	 *
+	 * @param matches receives the matches in order, as (start, end, keyword) triples
+	 * @return the number of matches
+	 */
+	int find(String message, int[] matches)
+	{
+		if (keywords.length == 0)
+		{
+			return 0;
+		}
+
+		final int capacity = Math.min(MAX_MATCHES, matches.length / 3);
+		int count = 0;
+		AhoCorasick.Node state = automaton.start();
+
+		for (int i = 0; i < message.length(); i++)
+		{
+			char c = message.charAt(i);
+			if (c == '<')
+			{
+				final int close = message.indexOf('>', i + 1);
+				if (close != -1)
+				{
+					// keywords do not match across a tag
+					state = automaton.start();
+					i = close;
+					continue;
+				}
+			}
+
+			state = automaton.next(state, c == '\u00A0' ? ' ' : Character.toLowerCase(c));
+			final int end = i + 1;
+			final int keyword = longest(message, end, state.values());
+			if (keyword == -1)
+			{
+				continue;
+			}
+
+			final int start = end - keywords[keyword].length();
+
+			final int last = (count - 1) * 3;
+			if (count > 0 && start < matches[last + 1])
+			{
+				// overlaps the previous match, only a match covering it from the same start or earlier wins
+				if (start <= matches[last])
+				{
+					matches[last] = start;
+					matches[last + 1] = end;
+					matches[last + 2] = keyword;
+				}
+				continue;
+			}
+
+			if (count == capacity)
+			{
+				break;
+			}
+
+			matches[count * 3] = start;
+			matches[count * 3 + 1] = end;
+			matches[count * 3 + 2] = keyword;
+			count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * The longest of the keywords ending at {@code end} that is a whole word, or -1 if none is.
+	 * A shorter keyword still matches when a longer one ending at the same place does not.
+	 */
+	private int longest(String message, int end, int[] candidates)
+	{
+		if (candidates.length == 0 || !isBoundary(message, end))
+		{
+			return -1;
+		}
+
+		int best = -1;
+		for (int keyword : candidates)
+		{
+			if ((best == -1 || keywords[keyword].length() > keywords[best].length()
+				|| keywords[keyword].length() == keywords[best].length() && keyword < best)
+				&& isBoundary(message, end - keywords[keyword].length() - 1))
+			{
+				best = keyword;
+			}
+		}
+		return best;
+	}
+
+	private static boolean isBoundary(String message, int index)
+	{
+		return index < 0 || index >= message.length() || !Character.isLetterOrDigit(message.charAt(index));
+	}
+}
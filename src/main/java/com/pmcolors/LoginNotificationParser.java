@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+/**
+ * Finds the player in a "name has logged in/out" notification without a regex. The name span is
+ * canonicalized into a reusable buffer and probed against the index, so a player who is not
+ * highlighted costs a substring search and a hash probe.
+ */
+class LoginNotificationParser
+{
+	private static final String HAS_LOGGED = " has logged ";
+
+	private final char[] nameBuffer = new char[CanonicalNames.BUFFER_LENGTH];
+
+	/**
+	 * Returns the end of the name in a login/logout notification, or -1 if the message is not one.
+	 */
+	static int nameEnd(String message)
+	{
+		for (int i = message.indexOf(HAS_LOGGED); i != -1; i = message.indexOf(HAS_LOGGED, i + 1))
+		{
+			final int state = i + HAS_LOGGED.length();
+			if (message.startsWith("in", state) || message.startsWith("out", state))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Resolves the style of the player in a notification. Only call from the client thread, the name
+	 * buffer is shared between calls.
+	 */
+	HighlightStyle findStyle(HighlightSnapshot snapshot, String message)
+	{
+		final int end = nameEnd(message);
+		if (end == -1)
+		{
+			return null;
+		}
+
+		final int length = CanonicalNames.canonicalize(message, 0, end, nameBuffer);
+		if (length == -1)
+		{
+			return snapshot.findStyle(message.substring(0, end));
+		}
+
+		final PlayerHighlight player = snapshot.get(nameBuffer, length);
+		if (player != null || snapshot.getRules().isEmpty())
+		{
+			return snapshot.styleOf(player);
+		}
+		return snapshot.ruleStyle(new String(nameBuffer, 0, length));
+	}
+}
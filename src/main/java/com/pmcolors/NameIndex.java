@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table keyed by canonical player names. Besides the usual string
+ * lookup it can be probed with a name held in a char buffer, using the same hash as
+ * {@link String#hashCode()}, so callers that parse a name out of a larger string never have
+ * to allocate a key for it.
+ */
+final class NameIndex<V>
+{
+	private static final int MIN_CAPACITY = 16;
+
+	private String[] keys;
+	private Object[] values;
+	private int mask;
+	private int size;
+
+	NameIndex()
+	{
+		this(0);
+	}
+
+	NameIndex(int expectedSize)
+	{
+		allocate(capacityFor(expectedSize));
+	}
+
+	private NameIndex(NameIndex<V> other)
+	{
+		keys = other.keys.clone();
+		values = other.values.clone();
+		mask = other.mask;
+		size = other.size;
+	}
+
+	/**
+	 * Copies the table, so a published index can be changed without its readers seeing it.
+	 */
+	NameIndex<V> copy()
+	{
+		return new NameIndex<>(this);
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	V get(String key)
+	{
+		if (key == null)
+		{
+			return null;
+		}
+
+		for (int i = slot(key.hashCode()); keys[i] != null; i = (i + 1) & mask)
+		{
+			if (keys[i].equals(key))
+			{
+				return value(i);
+			}
+		}
+		return null;
+	}
+
+	V get(char[] chars, int length)
+	{
+		int hash = 0;
+		for (int i = 0; i < length; i++)
+		{
+			hash = 31 * hash + chars[i];
+		}
+
+		for (int i = slot(hash); keys[i] != null; i = (i + 1) & mask)
+		{
+			if (matches(keys[i], chars, length))
+			{
+				return value(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Maps the key to the value unless the key is already present, in which case the existing
+	 * value is returned and the index is left untouched.
+	 */
+	V putIfAbsent(String key, V value)
+	{
+		int i = slot(key.hashCode());
+		for (; keys[i] != null; i = (i + 1) & mask)
+		{
+			if (keys[i].equals(key))
+			{
+				return value(i);
+			}
+		}
+
+		keys[i] = key;
+		values[i] = value;
+		if (++size * 2 > keys.length)
+		{
+			rehash(keys.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Maps the key to the value, returns the value it replaced or null if the key was not present.
+	 */
+	V put(String key, V value)
+	{
+		for (int i = slot(key.hashCode()); keys[i] != null; i = (i + 1) & mask)
+		{
+			if (keys[i].equals(key))
+			{
+				final V previous = value(i);
+				values[i] = value;
+				return previous;
+			}
+		}
+
+		putIfAbsent(key, value);
+		return null;
+	}
+
+	/**
+	 * Removes the key only if it is currently mapped to this exact value.
+	 */
+	boolean remove(String key, V value)
+	{
+		for (int i = slot(key.hashCode()); keys[i] != null; i = (i + 1) & mask)
+		{
+			if (keys[i].equals(key))
+			{
+				if (values[i] != value)
+				{
+					return false;
+				}
+
+				delete(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void clear()
+	{
+		Arrays.fill(keys, null);
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	// backward shift deletion keeps probe sequences intact without tombstones
+	private void delete(int gap)
+	{
+		keys[gap] = null;
+		values[gap] = null;
+		size--;
+
+		for (int i = (gap + 1) & mask; keys[i] != null; i = (i + 1) & mask)
+		{
+			final int home = slot(keys[i].hashCode());
+			final boolean reachable = gap < i ? home > gap && home <= i : home > gap || home <= i;
+			if (!reachable)
+			{
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				keys[i] = null;
+				values[i] = null;
+				gap = i;
+			}
+		}
+	}
+
+	private void rehash(int capacity)
+	{
+		final String[] oldKeys = keys;
+		final Object[] oldValues = values;
+		allocate(capacity);
+
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldKeys[i] != null)
+			{
+				int j = slot(oldKeys[i].hashCode());
+				while (keys[j] != null)
+				{
+					j = (j + 1) & mask;
+				}
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new String[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	private int slot(int hash)
+	{
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V value(int i)
+	{
+		return (V) values[i];
+	}
+
+	private static boolean matches(String key, char[] chars, int length)
+	{
+		if (key.length() != length)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < length; i++)
+		{
+			if (key.charAt(i) != chars[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int capacityFor(int expectedSize)
+	{
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2)
+		{
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
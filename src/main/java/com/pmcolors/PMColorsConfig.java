@@ -63,4 +63,33 @@ public interface PMColorsConfig extends Config
 			position = 14
 	)
 	default boolean highlightLoggedInOutDefault() { return true; }
+	@ConfigItem(
+			keyName = "patternRules",
+			name = "Pattern rules",
+			description = "Highlights players by pattern, one rule per line: 'Iron *' for a prefix, '*pk*' for a wildcard or '/regex/'. " +
+				"End a rule with '= group' to use a group's style instead of the defaults above",
+			position = 15
+	)
+	default String patternRules() { return ""; }
+	@ConfigItem(
+			keyName = "keywords",
+			name = "Message keywords",
+			description = "Highlights these words in private messages, one per line. End a line with '= #hex' to give it its own color",
+			position = 16
+	)
+	default String keywords() { return ""; }
+	@ConfigItem(
+			keyName = "keywordColor",
+			name = "Keyword color",
+			description = "Configures the color of message keywords without a color of their own",
+			position = 17
+	)
+	default Color keywordColor() { return Color.CYAN; }
+	@ConfigItem(
+			keyName = "recordChat",
+			name = "Record chat",
+			description = "Records private messages, login notifications and their chat events to the pmcolors-recordings folder in the RuneLite directory, for replaying offline",
+			position = 18
+	)
+	default boolean recordChat() { return false; }
 }
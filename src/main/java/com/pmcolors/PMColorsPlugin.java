@@ -28,12 +28,10 @@ package com.pmcolors;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ObjectArrays;
+import com.google.common.collect.ImmutableSet;
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import com.google.inject.Provides;
 import javax.inject.Inject;
-import javax.swing.*;
 
 import com.pmcolors.ui.PMColorsPanel;
 import lombok.Getter;
@@ -42,6 +40,8 @@ import net.runelite.api.*;
 import net.runelite.api.events.*;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
@@ -50,21 +50,29 @@ import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.ui.components.colorpicker.ColorPickerManager;
-import net.runelite.client.util.ColorUtil;
+import net.runelite.client.ui.components.colorpicker.RuneliteColorPicker;
 import net.runelite.client.util.ImageUtil;
 import net.runelite.client.util.Text;
-import org.apache.commons.lang3.ArrayUtils;
 
 import java.awt.*;
+import javax.swing.SwingUtilities;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Predicate;
 
 @Slf4j
 @PluginDescriptor(
@@ -77,10 +85,25 @@ public class PMColorsPlugin extends Plugin
 	private static final String PLUGIN_NAME = "PM Colors";
 
 	private static final String CONFIG_GROUP = "pmcolors";
-	private static final String CONFIG_KEY = "highlightedplayers";
+	// every player is stored under its own key so an edit only rewrites that player
+	private static final String PLAYER_KEY_PREFIX = "player.";
+	// stands in for a manifest, see loadConfig
+	private static final String STORAGE_VERSION_KEY = "storageversion";
+	private static final String STORAGE_VERSION = "2";
+	// all players used to be stored as a single json array under this key
+	private static final String LEGACY_CONFIG_KEY = "highlightedplayers";
+	// a legacy array that could not be read completely is moved here instead of being migrated again
+	private static final String LEGACY_BACKUP_KEY = "highlightedplayersbackup";
+	// the groups are few and small, they are stored together
+	private static final String GROUPS_KEY = "groups";
+	// the pattern rules and the defaults that style the rules without a group
+	private static final ImmutableSet<String> RULE_KEYS = ImmutableSet.of("patternRules", "highlightColor",
+		"highlightUsername", "highlightMessage", "highlightLoggedInOut");
+	private static final ImmutableSet<String> KEYWORD_KEYS = ImmutableSet.of("keywords", "keywordColor");
+	private static final String RECORD_KEY = "recordChat";
+	private static final File RECORDING_DIR = new File(RuneLite.RUNELITE_DIR, "pmcolors-recordings");
 
-	private static final Pattern LOGGED_PATTERN = Pattern.compile(
-		"(.*?) has logged (out|in)");
+	private static final Gson GSON = new Gson();
 
 	@Inject
 	private Client client;
@@ -91,13 +114,15 @@ public class PMColorsPlugin extends Plugin
 	@Inject
 	private ScheduledExecutorService executor;
 
+	@Inject
+	private ClientThread clientThread;
+
 	@Inject
 	private ClientToolbar clientToolbar;
 
 	@Inject
 	private ConfigManager configManager;
 
-	@Getter
 	@Inject
 	private ColorPickerManager colorPickerManager;
 
@@ -108,24 +133,60 @@ public class PMColorsPlugin extends Plugin
 
 	//private static final ImmutableSet<Integer> HIGHLIGHT_SCRIPT IDS = new Immutabl
 
-	private String selectedPlayer = null;
-
 	private PMColorsPanel pluginPanel;
 
 	private NavigationButton navigationButton;
 
+	// the manager keeps the last picker it made, and with it our callbacks, until it makes another
+	private RuneliteColorPicker colorPicker;
+
 	@Getter
-	private final List<PlayerHighlight> highlightedPlayers = new ArrayList<>();
+	private final HighlightRegistry registry = new HighlightRegistry();
+
+	private final LoginNotificationParser loginNotificationParser = new LoginNotificationParser();
+
+	private final UsernameTagCache usernameTagCache = new UsernameTagCache();
+
+	private WidgetRecolorer widgetRecolorer;
+
+	// only used on the client thread
+	private final ChatHistory chatHistory = new ChatHistory();
+
+	// set while a color picker previews its color in the chat
+	private volatile ColorPreview colorPreview;
+
+	// only used on the client thread, null when not recording
+	private ChatRecording.Writer recorder;
+
+	@Getter
+	private final PluginMetrics metrics = new PluginMetrics();
+
+	private HighlightPersistence persistence;
+
+	private volatile KeywordHighlighter keywordHighlighter = KeywordHighlighter.EMPTY;
+
+	// only used on the client thread
+	private final int[] keywordMatches = new int[KeywordHighlighter.MAX_MATCHES * 3];
 
 	@Override
 	protected void startUp() throws Exception
 	{
-		selectedPlayer = null;
-
-		loadConfig(configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY)).forEach(highlightedPlayers::add);
+		widgetRecolorer = new WidgetRecolorer(client);
+		persistence = new HighlightPersistence(executor, registry::get, this::savePlayer, this::saveGroups);
+		loadConfig();
+		compileRules();
+		compileKeywords();
+		if (config.recordChat())
+		{
+			clientThread.invokeLater(this::startRecording);
+		}
+		if (!STORAGE_VERSION.equals(configManager.getConfiguration(CONFIG_GROUP, STORAGE_VERSION_KEY)))
+		{
+			migrateLegacyConfig(configManager.getConfiguration(CONFIG_GROUP, LEGACY_CONFIG_KEY));
+		}
 
 		pluginPanel = new PMColorsPanel(this);
-		pluginPanel.rebuild();
+		pluginPanel.attach();
 
 		final BufferedImage icon = ImageUtil.loadImageResource(getClass(), "/icon_marker.png");
 
@@ -145,12 +206,26 @@ public class PMColorsPlugin extends Plugin
 	{
 		clientToolbar.removeNavigation(navigationButton);
 
-		highlightedPlayers.clear();
+		// commits the color being picked before the last write
+		closeColorPicker();
+		persistence.close();
+		pluginPanel.detach();
+		registry.clear();
+		usernameTagCache.clear();
+		final WidgetRecolorer recolorer = widgetRecolorer;
+		clientThread.invokeLater(() ->
+		{
+			recolorer.restore();
+			if (chatHistory.restore(keywordMatches))
+			{
+				client.refreshChat();
+			}
+			stopRecording();
+		});
+		widgetRecolorer = null;
 		pluginPanel = null;
 
 		navigationButton = null;
-
-		selectedPlayer = null;
 	}
 
 	@Provides
@@ -162,62 +237,159 @@ public class PMColorsPlugin extends Plugin
 	@Subscribe
 	public void onConfigChanged(ConfigChanged event)
 	{
-		if (highlightedPlayers.isEmpty() && event.getGroup().equals(CONFIG_GROUP) && event.getKey().equals(CONFIG_KEY))
+		if (!event.getGroup().equals(CONFIG_GROUP) || persistence == null || persistence.isWriting())
+		{
+			return;
+		}
+
+		final String key = event.getKey();
+		if (key.startsWith(PLAYER_KEY_PREFIX))
+		{
+			applyPlayerChange(key.substring(PLAYER_KEY_PREFIX.length()).replace('_', ' '), event.getNewValue());
+		}
+		else if (key.equals(GROUPS_KEY))
+		{
+			applyGroupsChange(event.getNewValue());
+		}
+		else if (RULE_KEYS.contains(key))
+		{
+			compileRules();
+		}
+		else if (KEYWORD_KEYS.contains(key))
+		{
+			compileKeywords();
+		}
+		else if (key.equals(RECORD_KEY))
+		{
+			clientThread.invokeLater(config.recordChat() ? this::startRecording : this::stopRecording);
+		}
+		else if (key.equals(LEGACY_CONFIG_KEY) && event.getNewValue() != null)
+		{
+			migrateLegacyConfig(event.getNewValue());
+		}
+	}
+
+	/**
+	 * Applies a change to a single player's key made outside of this plugin, e.g. by a profile sync.
+	 */
+	private void applyPlayerChange(String canonicalName, String json)
+	{
+		final PlayerHighlight existing = registry.get(canonicalName);
+		if (Strings.isNullOrEmpty(json))
+		{
+			if (existing != null)
+			{
+				registry.remove(existing);
+			}
+			return;
+		}
+
+		final PlayerHighlight player = readPlayer(json);
+		if (player == null)
+		{
+			return;
+		}
+
+		if (existing == null)
+		{
+			registry.add(player);
+		}
+		else
+		{
+			registry.update(player);
+		}
+	}
+
+	/**
+	 * Applies a change to the groups made outside of this plugin, members of a group that is gone keep its style.
+	 */
+	private void applyGroupsChange(String json)
+	{
+		final List<HighlightGroup> groups = new ArrayList<>();
+		loadGroups(json, groups::add);
+
+		final List<PlayerHighlight> released = new ArrayList<>();
+		try (HighlightRegistry.Transaction transaction = registry.begin())
 		{
-			loadConfig(event.getNewValue()).forEach(highlightedPlayers::add);
+			for (HighlightGroup existing : registry.getSnapshot().getGroups())
+			{
+				if (groups.stream().noneMatch(group -> group.getId() == existing.getId()))
+				{
+					released.addAll(transaction.removeGroup(existing.getId()));
+				}
+			}
+
+			groups.forEach(transaction::putGroup);
 		}
+
+		released.forEach(this::markDirty);
 	}
 
 	@Subscribe(priority = 1) // run before chat message manager
 	public void onChatMessage(ChatMessage chatMessage)
+	{
+		final long start = System.nanoTime();
+		metrics.getChatMessage().record(start, highlightChatMessage(chatMessage));
+	}
+
+	/**
+	 * @return whether the message was highlighted
+	 */
+	private boolean highlightChatMessage(ChatMessage chatMessage)
 	{
 		ChatMessageType messageType = chatMessage.getType();
-		if (messageType == ChatMessageType.PRIVATECHAT || messageType == ChatMessageType.PRIVATECHATOUT)
+		// only the messages this plugin styles, public and clan chat is never written to disk
+		if (recorder != null && (messageType == ChatMessageType.PRIVATECHAT || messageType == ChatMessageType.PRIVATECHATOUT
+			|| messageType == ChatMessageType.LOGINLOGOUTNOTIFICATION))
 		{
-			String name = Text.removeTags(Text.toJagexName(chatMessage.getName()));
-			PlayerHighlight player = highlightedPlayers.stream()
-					.filter(p -> name.equalsIgnoreCase(p.getName()))
-					.findAny()
-					.orElse(null);
+			record(() -> recorder.chatMessage(messageType, chatMessage.getName(), chatMessage.getSender(),
+				chatMessage.getMessageNode().getValue()));
+		}
 
-			if (player != null)
+		if (messageType == ChatMessageType.PRIVATECHAT || messageType == ChatMessageType.PRIVATECHATOUT)
+		{
+			final HighlightStyle style = ChatHistory.messageStyle(registry.getSnapshot(), colorPreview, chatMessage.getName());
+			final KeywordHighlighter keywords = keywordHighlighter;
+			final MessageNode messageNode = chatMessage.getMessageNode();
+			final String value = messageNode.getValue();
+			boolean highlighted = false;
+			if (style != null || !keywords.isEmpty())
 			{
-				if (player.isHighlightMessage())
-				{
-					MessageNode messageNode = chatMessage.getMessageNode();
-					messageNode.setValue(ColorUtil.wrapWithColorTag(
-							messageNode.getValue().replace(ColorUtil.CLOSING_COLOR_TAG, ColorUtil.colorTag(player.getColor())),
-							player.getColor()));
-				}
+				final String rewritten = ColorTagRewriter.highlight(value, style, keywords, keywordMatches);
+				messageNode.setValue(rewritten);
+				highlighted = rewritten != value;
 			}
+			chatHistory.add(chatMessage.getName(), messageNode, value, style);
+			return highlighted;
 		}
 		else if (messageType == ChatMessageType.LOGINLOGOUTNOTIFICATION)
 		{
-			Matcher loggedMatcher = LOGGED_PATTERN.matcher(chatMessage.getMessage());
-			if (loggedMatcher.find())
-			{
-				String name = Text.removeTags(Text.toJagexName(loggedMatcher.group(1)));
-				PlayerHighlight player = highlightedPlayers.stream()
-						.filter(p -> name.equalsIgnoreCase(p.getName()))
-						.findAny()
-						.orElse(null);
+			HighlightStyle style = loginNotificationParser.findStyle(registry.getSnapshot(), chatMessage.getMessage());
 
-				if (player != null)
+			if (style != null)
+			{
+				if (style.isHighlightLoggedInOut())
 				{
-					if (player.isHighlightLoggedInOut())
-					{
-						MessageNode messageNode = chatMessage.getMessageNode();
-						messageNode.setValue(ColorUtil.wrapWithColorTag(
-								messageNode.getValue().replace(ColorUtil.CLOSING_COLOR_TAG, ColorUtil.colorTag(player.getColor())),
-								player.getColor()));
-					}
+					MessageNode messageNode = chatMessage.getMessageNode();
+					messageNode.setValue(ColorTagRewriter.recolor(messageNode.getValue(), style));
+					return true;
 				}
 			}
 		}
+		return false;
 	}
 
 	@Subscribe(priority = 1) // run before chat message manager
 	public void onScriptCallbackEvent(ScriptCallbackEvent scriptCallbackEvent)
+	{
+		final long start = System.nanoTime();
+		metrics.getScriptCallback().record(start, highlightUsername(scriptCallbackEvent));
+	}
+
+	/**
+	 * @return whether the username was highlighted
+	 */
+	private boolean highlightUsername(ScriptCallbackEvent scriptCallbackEvent)
 	{
 		final String eventName = scriptCallbackEvent.getEventName();
 
@@ -229,7 +401,7 @@ public class PMColorsPlugin extends Plugin
 			case "privateChatSplitTo":
 				break;
 			default:
-				return;
+				return false;
 		}
 
 		//boolean isChatboxTransparent = client.isResized() && client.getVar(Varbits.TRANSPARENT_CHATBOX) == 1;
@@ -241,92 +413,406 @@ public class PMColorsPlugin extends Plugin
 
 		final String[] stringStack = client.getStringStack();
 		final int stringStackSize = client.getStringStackSize();
-
+		if (recorder != null)
+		{
+			record(() -> recorder.scriptCallback(eventName, stringStack, stringStackSize));
+		}
 
 		// Stack is: To/From playername :
-		String name = Text.removeTags(Text.toJagexName(stringStack[2]));
-		PlayerHighlight player = highlightedPlayers.stream()
-				.filter(p -> name.equalsIgnoreCase(p.getName()))
-				.findAny()
-				.orElse(null);
+		final String toFrom = stringStack[stringStackSize - 3];
+		stringStack[stringStackSize - 3] = usernameTagCache.get(registry.getSnapshot(), stringStack[2], toFrom);
+		return stringStack[stringStackSize - 3] != toFrom;
+	}
+
+	@Subscribe
+	public void onWidgetLoaded(WidgetLoaded event)
+	{
+		widgetRecolorer.markDirty(event.getGroupId());
+	}
 
-		if (player != null)
+	@Subscribe
+	public void onScriptPostFired(ScriptPostFired event)
+	{
+		widgetRecolorer.scriptRan(event.getScriptId());
+	}
+
+	@Subscribe
+	public void onGameTick(GameTick event)
+	{
+		final HighlightSnapshot snapshot = registry.getSnapshot();
+		widgetRecolorer.update(snapshot);
+		if (chatHistory.update(snapshot, colorPreview, keywordHighlighter, keywordMatches))
 		{
-			if (player.isHighlightUsername())
-			{
-				String toFrom = stringStack[stringStackSize - 3];
-				stringStack[stringStackSize - 3] = ColorUtil.prependColorTag(toFrom, player.getColor());
-			}
+			client.refreshChat();
 		}
 	}
 
-	// adapted from the hiscore plugin
 	@Subscribe
-	public void onMenuEntryAdded(MenuEntryAdded event)
+	public void onBeforeRender(BeforeRender event)
+	{
+		final ColorPreview preview = colorPreview;
+		final HighlightSnapshot snapshot = registry.getSnapshot();
+		if (preview != null && preview.apply(snapshot)
+			&& chatHistory.update(snapshot, preview, keywordHighlighter, keywordMatches))
+		{
+			client.refreshChat();
+		}
+	}
+
+	@Subscribe
+	public void onMenuOpened(MenuOpened event)
+	{
+		final long start = System.nanoTime();
+		metrics.getMenuOpened().record(start, addHighlightEntry(event));
+	}
+
+	/**
+	 * Adds "Highlight" or "Remove highlight" below the topmost "Message" or "Lookup" entry of a
+	 * private chat message, once the menu is complete.
+	 *
+	 * @return whether an entry was added
+	 */
+	private boolean addHighlightEntry(MenuOpened event)
 	{
-		final int groupId = WidgetInfo.TO_GROUP(event.getActionParam1());
+		final MenuEntry[] entries = event.getMenuEntries();
+		final int privateChatGroup = WidgetInfo.PRIVATE_CHAT_MESSAGE.getGroupId();
 
-		// Look for "Message" on friends list
-		if (groupId == WidgetInfo.PRIVATE_CHAT_MESSAGE.getGroupId())
+		// the last entry is the top of the menu
+		for (int i = entries.length - 1; i >= 0; i--)
 		{
-			//// Friends have color tagsString option = event.getOption();
-			selectedPlayer = Text.toJagexName(Text.removeTags(event.getTarget()));
-			if (!AFTER_OPTIONS.contains(event.getOption()) )
+			final MenuEntry entry = entries[i];
+			if (WidgetInfo.TO_GROUP(entry.getParam1()) != privateChatGroup || !AFTER_OPTIONS.contains(entry.getOption()))
 			{
-				return;
+				continue;
 			}
 
-			// Build "Add Note" or "Edit Note" menu entry
+			// the entry carries its target, with color codes preserved, so a click needs no other state
 			final MenuEntry highlight = new MenuEntry();
-			PlayerHighlight player = highlightedPlayers.stream()
-					.filter(p -> selectedPlayer.equalsIgnoreCase(p.getName()))
-					.findAny()
-					.orElse(null);
-
-			if (player == null)
-				highlight.setOption(HIGHLIGHT);
-			else
-				highlight.setOption(REMOVE_HIGHLIGHT);
+			highlight.setOption(registry.find(entry.getTarget()) == null ? HIGHLIGHT : REMOVE_HIGHLIGHT);
 			highlight.setType(MenuAction.RUNELITE.getId());
-			highlight.setTarget(event.getTarget()); //Preserve color codes here
-			highlight.setParam0(event.getActionParam0());
-			highlight.setParam1(event.getActionParam1());
-			highlight.setIdentifier(event.getIdentifier());
-			// Add menu entry
-			insertMenuEntry(highlight, client.getMenuEntries());
-		}
-		else
-		{
-			selectedPlayer = null;
+			highlight.setTarget(entry.getTarget());
+			highlight.setParam0(entry.getParam0());
+			highlight.setParam1(entry.getParam1());
+			highlight.setIdentifier(entry.getIdentifier());
+
+			final MenuEntry[] menu = new MenuEntry[entries.length + 1];
+			System.arraycopy(entries, 0, menu, 0, i);
+			menu[i] = highlight;
+			System.arraycopy(entries, i, menu, i + 1, entries.length - i);
+
+			event.setMenuEntries(menu);
+			client.setMenuEntries(menu);
+			return true;
 		}
+		return false;
 	}
 
 	@Subscribe
 	public void onMenuOptionClicked(MenuOptionClicked event)
 	{
-		if (event.getMenuAction() == MenuAction.RUNELITE && event.getMenuOption().equals(HIGHLIGHT))
+		final long start = System.nanoTime();
+		metrics.getMenuOptionClicked().record(start, applyMenuOption(event));
+	}
+
+	/**
+	 * @return whether the option was one of ours
+	 */
+	private boolean applyMenuOption(MenuOptionClicked event)
+	{
+		if (event.getMenuAction() != MenuAction.RUNELITE
+			|| WidgetInfo.TO_GROUP(event.getWidgetId()) != WidgetInfo.PRIVATE_CHAT_MESSAGE.getGroupId())
+		{
+			return false;
+		}
+
+		final String target = event.getMenuTarget();
+		if (event.getMenuOption().equals(HIGHLIGHT))
 		{
-			finishCreation(false, selectedPlayer, config.defaultHighlightColor());
+			finishCreation(false, Text.removeTags(target), config.defaultHighlightColor());
+			return true;
 		}
-		else if (event.getMenuAction() == MenuAction.RUNELITE && event.getMenuOption().equals(REMOVE_HIGHLIGHT))
+		else if (event.getMenuOption().equals(REMOVE_HIGHLIGHT))
 		{
-			PlayerHighlight player = highlightedPlayers.stream()
-					.filter(p -> selectedPlayer.equalsIgnoreCase(p.getName()))
-					.findAny()
-					.orElse(null);
+			PlayerHighlight player = registry.find(target);
 			if (player != null)
 				deleteHighlight(player);
+			return true;
 		}
-		selectedPlayer = null;
+		return false;
 	}
 
-	// adapted from the hiscore plugin
-	private void insertMenuEntry(MenuEntry newEntry, MenuEntry[] entries)
+	/**
+	 * Imports a CSV or json file in one transaction. Rows leave out whatever should take the
+	 * defaults from the config, and a group that does not exist yet is created with the style of
+	 * its first row.
+	 *
+	 * @param replace whether to remove the players the file does not mention
+	 */
+	public HighlightExchange.Result importHighlights(File file, boolean replace) throws IOException
 	{
-		MenuEntry[] newMenu = ObjectArrays.concat(entries, newEntry);
-		int menuEntryCount = newMenu.length;
-		ArrayUtils.swap(newMenu, menuEntryCount - 1, menuEntryCount - 2);
-		client.setMenuEntries(newMenu);
+		// the whole file is read before anything is applied, so a file that fails to read changes nothing
+		// and the registry is only locked for as long as applying the rows takes
+		final List<HighlightExchange.Row> rows = new ArrayList<>();
+		final HighlightConfigReader.LoadResult result;
+		try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			result = HighlightExchange.read(in, HighlightExchange.Format.of(file), rows::add);
+		}
+
+		final HighlightStyle defaults = defaultStyle();
+		final Set<String> imported = new HashSet<>();
+		final List<PlayerHighlight> changed = new ArrayList<>();
+		int added = 0;
+		int updated = 0;
+		int removed = 0;
+		int dropped = result.getDropped();
+		boolean groupsCreated = false;
+
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			for (HighlightExchange.Row row : rows)
+			{
+				final String name = Text.toJagexName(row.getName());
+				if (name.isEmpty() || !imported.add(HighlightRegistry.canonicalName(name)))
+				{
+					dropped++;
+					continue;
+				}
+
+				final HighlightStyle style = HighlightStyle.of(
+					row.getColor() != null ? row.getColor() : defaults.getColor(),
+					row.getHighlightUsername() != null ? row.getHighlightUsername() : defaults.isHighlightUsername(),
+					row.getHighlightMessage() != null ? row.getHighlightMessage() : defaults.isHighlightMessage(),
+					row.getHighlightLoggedInOut() != null ? row.getHighlightLoggedInOut() : defaults.isHighlightLoggedInOut());
+
+				PlayerHighlight player = new PlayerHighlight(name, style.getColor(), style.isHighlightUsername(),
+					style.isHighlightMessage(), style.isHighlightLoggedInOut());
+				if (row.getGroup() != null)
+				{
+					HighlightGroup group = transaction.findGroup(row.getGroup());
+					if (group == null)
+					{
+						group = new HighlightGroup(transaction.nextGroupId(), row.getGroup(), style.getColor(),
+							style.isHighlightUsername(), style.isHighlightMessage(), style.isHighlightLoggedInOut());
+						transaction.putGroup(group);
+						groupsCreated = true;
+					}
+					player = PlayerHighlight.member(name, group.getId());
+				}
+
+				if (transaction.add(player))
+				{
+					added++;
+				}
+				else if (transaction.update(player))
+				{
+					updated++;
+				}
+				else
+				{
+					continue;
+				}
+				changed.add(player);
+			}
+
+			if (replace)
+			{
+				for (PlayerHighlight player : registry.getSnapshot().getPlayers())
+				{
+					if (!imported.contains(HighlightRegistry.canonicalName(player.getName())) && transaction.remove(player))
+					{
+						changed.add(player);
+						removed++;
+					}
+				}
+			}
+		}
+
+		if (groupsCreated)
+		{
+			persistence.markGroupsDirty();
+		}
+		changed.forEach(this::markDirty);
+
+		return new HighlightExchange.Result(added, updated, removed, dropped);
+	}
+
+	/**
+	 * Exports every player with its style to a CSV or json file.
+	 */
+	public void exportHighlights(File file) throws IOException
+	{
+		try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+		{
+			HighlightExchange.write(out, registry.getSnapshot(), HighlightExchange.Format.of(file));
+		}
+	}
+
+	@FunctionalInterface
+	private interface RecordAction
+	{
+		void run() throws IOException;
+	}
+
+	private void startRecording()
+	{
+		if (recorder != null)
+		{
+			return;
+		}
+
+		final String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		final File file = new File(RECORDING_DIR, "chat-" + timestamp + ".pmcr.gz");
+		try
+		{
+			Files.createDirectories(RECORDING_DIR.toPath());
+			recorder = new ChatRecording.Writer(file);
+			log.info("Recording chat to {}", file);
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to start recording chat", ex);
+		}
+	}
+
+	private void stopRecording()
+	{
+		if (recorder == null)
+		{
+			return;
+		}
+
+		try
+		{
+			recorder.close();
+			log.info("Recorded {} chat events", recorder.getEvents());
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to finish the chat recording", ex);
+		}
+		recorder = null;
+	}
+
+	/**
+	 * Records an event, a failed write stops the recording instead of failing the handler.
+	 */
+	private void record(RecordAction action)
+	{
+		try
+		{
+			action.run();
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to record chat, recording stopped", ex);
+			stopRecording();
+		}
+	}
+
+	/**
+	 * Writes the current metrics to a new file in the RuneLite directory.
+	 *
+	 * @return the file written
+	 */
+	public File dumpMetrics() throws IOException
+	{
+		final String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		final File file = new File(RuneLite.RUNELITE_DIR, "pmcolors-diagnostics-" + timestamp + ".txt");
+		Files.write(file.toPath(), metrics.format().getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	/**
+	 * Opens a color picker, closing the one opened before. It is closed when the plugin stops.
+	 */
+	public RuneliteColorPicker openColorPicker(Component owner, Color color, String title)
+	{
+		closeColorPicker();
+		colorPicker = colorPickerManager.create(SwingUtilities.windowForComponent(owner), color, title, true);
+		return colorPicker;
+	}
+
+	/**
+	 * Shows the colors picked for the player in the chat as they are picked, the color the picker
+	 * closes with is applied and saved once.
+	 */
+	public void previewPlayerColor(RuneliteColorPicker picker, PlayerHighlight player)
+	{
+		final String name = player.getName();
+		startPreview(picker, new ColorPreview(snapshot ->
+		{
+			final PlayerHighlight current = snapshot.find(name);
+			return current != null && !current.isGrouped() ? current.getStyle() : null;
+		}, c ->
+		{
+			final PlayerHighlight current = registry.find(name);
+			if (current != null && registry.update(current.withColor(c)))
+			{
+				markDirty(registry.find(name));
+			}
+		}));
+	}
+
+	/**
+	 * Shows the colors picked for the group in the chat as they are picked, the color the picker
+	 * closes with is applied and saved once.
+	 */
+	public void previewGroupColor(RuneliteColorPicker picker, HighlightGroup group)
+	{
+		final int id = group.getId();
+		startPreview(picker, new ColorPreview(snapshot ->
+		{
+			final HighlightGroup current = snapshot.getGroup(id);
+			return current != null ? current.getStyle() : null;
+		}, c ->
+		{
+			try (HighlightRegistry.Transaction transaction = registry.begin())
+			{
+				final HighlightGroup current = transaction.getGroup(id);
+				if (current == null || current.getColor().equals(c))
+				{
+					return;
+				}
+				transaction.putGroup(current.withColor(c));
+			}
+			persistence.markGroupsDirty();
+		}));
+	}
+
+	private void startPreview(RuneliteColorPicker picker, ColorPreview preview)
+	{
+		colorPreview = preview;
+		picker.setOnColorChange(preview::colorChanged);
+		picker.setOnClose(c ->
+		{
+			preview.commit(c);
+			if (colorPreview == preview)
+			{
+				colorPreview = null;
+			}
+		});
+	}
+
+	private void closeColorPicker()
+	{
+		if (colorPicker == null)
+		{
+			return;
+		}
+
+		final ColorPreview preview = colorPreview;
+		if (preview != null)
+		{
+			preview.commit(null);
+			colorPreview = null;
+		}
+
+		// drop the callbacks, they hold on to the panel and the plugin
+		colorPicker.setOnColorChange(c -> {});
+		colorPicker.setOnClose(c -> {});
+		colorPicker.dispose();
+		colorPicker = null;
 	}
 
 	public Color getDefaultColor()
@@ -338,55 +824,330 @@ public class PMColorsPlugin extends Plugin
 	{
 		if (!aborted && name != null && color != null)
 		{
-			PlayerHighlight highlight = new PlayerHighlight();
-			highlight.setName(Text.toJagexName(name));
-			highlight.setColor(color);
-			highlight.setHighlightUsername(config.highlightUsernameDefault());
-			highlight.setHighlightMessage(config.highlightMessageDefault());
-			highlight.setHighlightLoggedInOut(config.highlightLoggedInOutDefault());
-			highlightedPlayers.add(highlight);
-
-			SwingUtilities.invokeLater(() -> pluginPanel.rebuild());
-			updateConfig();
+			PlayerHighlight highlight = new PlayerHighlight(Text.toJagexName(name), color,
+				config.highlightUsernameDefault(), config.highlightMessageDefault(), config.highlightLoggedInOutDefault());
+			if (registry.add(highlight))
+			{
+				markDirty(highlight);
+			}
 		}
 
-		pluginPanel.setCreation(false);
+		if (pluginPanel != null)
+		{
+			pluginPanel.setCreation(false);
+		}
 	}
 
 	public void deleteHighlight(final PlayerHighlight highlight)
 	{
-		highlightedPlayers.remove(highlight);
-		updateConfig();
-		SwingUtilities.invokeLater(() -> pluginPanel.rebuild());
+		if (registry.remove(highlight))
+		{
+			markDirty(highlight);
+		}
+	}
+
+	/**
+	 * Replaces the highlighted player with an edited copy and schedules it to be saved, changes made in
+	 * quick succession are written once.
+	 */
+	public void updateConfig(PlayerHighlight player)
+	{
+		final long start = System.nanoTime();
+		final boolean updated = registry.update(player);
+		if (updated)
+		{
+			markDirty(player);
+		}
+		metrics.getUpdateConfig().record(start, updated);
+	}
+
+	/**
+	 * Creates a group with the player's current style and moves the player into it.
+	 */
+	public void createGroup(String name, PlayerHighlight player)
+	{
+		final HighlightStyle style = registry.getSnapshot().styleOf(player);
+		if (style == null)
+		{
+			return;
+		}
+
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			final HighlightGroup group = new HighlightGroup(transaction.nextGroupId(), name, style.getColor(),
+				style.isHighlightUsername(), style.isHighlightMessage(), style.isHighlightLoggedInOut());
+			transaction.putGroup(group);
+			transaction.update(player.withGroupId(group.getId()));
+		}
+
+		persistence.markGroupsDirty();
+		markDirty(player);
+	}
+
+	/**
+	 * Moves the player into a group, or out of its group when passed null, in which case it keeps the group's style.
+	 */
+	public void setGroup(PlayerHighlight player, HighlightGroup group)
+	{
+		if (group != null)
+		{
+			updateConfig(player.withGroupId(group.getId()));
+			return;
+		}
+
+		final HighlightStyle style = registry.getSnapshot().styleOf(player);
+		if (player.isGrouped() && style != null)
+		{
+			updateConfig(player.withStyle(style));
+		}
+	}
+
+	/**
+	 * Replaces a group with an edited copy, a single write that restyles every member.
+	 */
+	public void updateGroup(HighlightGroup group)
+	{
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			final HighlightGroup existing = transaction.getGroup(group.getId());
+			if (existing == null || existing.equals(group))
+			{
+				return;
+			}
+
+			transaction.putGroup(group);
+		}
+
+		persistence.markGroupsDirty();
+	}
+
+	public void deleteGroup(HighlightGroup group)
+	{
+		final List<PlayerHighlight> released;
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			released = transaction.removeGroup(group.getId());
+		}
+
+		persistence.markGroupsDirty();
+		released.forEach(this::markDirty);
+	}
 
+	private void markDirty(PlayerHighlight player)
+	{
+		persistence.markDirty(HighlightRegistry.canonicalName(player.getName()));
 	}
 
-	public void updateConfig()
+	void savePlayer(String canonicalName, PlayerHighlight player)
 	{
-		if (highlightedPlayers.isEmpty())
+		final long start = System.nanoTime();
+		final String key = playerKey(canonicalName);
+		if (player == null)
 		{
-			configManager.unsetConfiguration(CONFIG_GROUP, CONFIG_KEY);
+			configManager.unsetConfiguration(CONFIG_GROUP, key);
+			metrics.getPersistence().record(start, false);
 			return;
 		}
 
-		final Gson gson = new Gson();
-		final String json = gson
-				.toJson(highlightedPlayers.stream().collect(Collectors.toList()));
-		configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY, json);
+		final String json = GSON.toJson(player);
+		configManager.setConfiguration(CONFIG_GROUP, key, json);
+		metrics.getPersistence().addBytes(json.length());
+		metrics.getPersistence().record(start, true);
+	}
+
+	void saveGroups()
+	{
+		final long start = System.nanoTime();
+		final List<HighlightGroup> groups = registry.getSnapshot().getGroups();
+		if (groups.isEmpty())
+		{
+			configManager.unsetConfiguration(CONFIG_GROUP, GROUPS_KEY);
+			metrics.getPersistence().record(start, false);
+			return;
+		}
+
+		final String json = GSON.toJson(groups);
+		configManager.setConfiguration(CONFIG_GROUP, GROUPS_KEY, json);
+		metrics.getPersistence().addBytes(json.length());
+		metrics.getPersistence().record(start, true);
+	}
+
+	void loadConfig()
+	{
+		// There is no manifest of player keys, the keys under the prefix are listed instead. A manifest
+		// would be a second key to rewrite on every add and remove, and one that profile sync could
+		// leave out of step with the player keys it lists. The storage version only records that the
+		// legacy array was migrated.
+		final List<String> keys = new ArrayList<>(configManager.getConfigurationKeys(CONFIG_GROUP + "." + PLAYER_KEY_PREFIX));
+		Collections.sort(keys);
+
+		int dropped = 0;
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			loadGroups(configManager.getConfiguration(CONFIG_GROUP, GROUPS_KEY), group ->
+			{
+				if (transaction.getGroup(group.getId()) != null)
+				{
+					return false;
+				}
+
+				transaction.putGroup(group);
+				return true;
+			});
+
+			for (String key : keys)
+			{
+				final String json = configManager.getConfiguration(CONFIG_GROUP, key.substring(CONFIG_GROUP.length() + 1));
+				final PlayerHighlight player = Strings.isNullOrEmpty(json) ? null : readPlayer(json);
+				if (player == null || !transaction.add(player))
+				{
+					dropped++;
+				}
+			}
+		}
+
+		if (dropped > 0)
+		{
+			log.warn("Skipped {} malformed or duplicate highlighted players", dropped);
+		}
 	}
 
-	private Stream<PlayerHighlight> loadConfig(String json)
+	/**
+	 * Moves highlights from the single json array used by older versions to one key per player. The
+	 * migration runs exactly once: if the array is corrupt the players read before the error are kept,
+	 * and the original value is moved to a backup key so it can still be recovered by hand.
+	 */
+	private void migrateLegacyConfig(String json)
+	{
+		boolean corrupt = false;
+		int loaded = 0;
+		int dropped = 0;
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			final HighlightConfigReader.LoadResult result = loadLegacyConfig(json, player ->
+			{
+				if (!transaction.add(player))
+				{
+					return false;
+				}
+
+				markDirty(player);
+				return true;
+			});
+			loaded = result.getLoaded();
+			dropped = result.getDropped();
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			log.warn("Unable to read all legacy highlighted players, the original value is kept under {}", LEGACY_BACKUP_KEY, ex);
+			corrupt = true;
+		}
+
+		if (dropped > 0)
+		{
+			log.warn("Skipped {} malformed or duplicate highlighted players", dropped);
+		}
+
+		if (loaded > 0)
+		{
+			log.debug("Migrating {} highlighted players to per player config keys", loaded);
+		}
+
+		final boolean backup = corrupt;
+		// only drop the old key once every player has been written under its own key
+		executor.execute(() ->
+		{
+			persistence.flush();
+			if (backup)
+			{
+				configManager.setConfiguration(CONFIG_GROUP, LEGACY_BACKUP_KEY, json);
+			}
+			configManager.unsetConfiguration(CONFIG_GROUP, LEGACY_CONFIG_KEY);
+			configManager.setConfiguration(CONFIG_GROUP, STORAGE_VERSION_KEY, STORAGE_VERSION);
+		});
+	}
+
+	/**
+	 * Streams the players out of a legacy json array straight into the sink, without holding them in a list first.
+	 *
+	 * @throws IOException if the array is truncated or corrupt, after the players before the error were handed to the sink
+	 */
+	static HighlightConfigReader.LoadResult loadLegacyConfig(String json, Predicate<PlayerHighlight> sink) throws IOException
 	{
 		if (Strings.isNullOrEmpty(json))
 		{
-			return Stream.empty();
+			return new HighlightConfigReader.LoadResult(0, 0);
 		}
 
-		final Gson gson = new Gson();
-		final List<PlayerHighlight> playerHiglightData = gson.fromJson(json, new TypeToken<ArrayList<PlayerHighlight>>()
+		return HighlightConfigReader.readPlayers(new StringReader(json), sink);
+	}
+
+	/**
+	 * Compiles the pattern rules from the config, replacing the previous rules and their cached matches.
+	 */
+	private void compileRules()
+	{
+		final PatternRules rules = PatternRules.parse(config.patternRules(), defaultStyle());
+
+		try (HighlightRegistry.Transaction transaction = registry.begin())
 		{
-		}.getType());
+			transaction.setRules(rules);
+		}
+	}
+
+	/**
+	 * The style of a new highlight, as set in the config.
+	 */
+	private HighlightStyle defaultStyle()
+	{
+		return HighlightStyle.of(config.defaultHighlightColor(), config.highlightUsernameDefault(),
+			config.highlightMessageDefault(), config.highlightLoggedInOutDefault());
+	}
+
+	/**
+	 * Compiles the message keywords from the config.
+	 */
+	private void compileKeywords()
+	{
+		keywordHighlighter = KeywordHighlighter.parse(config.keywords(), config.keywordColor());
+	}
 
-		return playerHiglightData.stream().filter(Objects::nonNull);
+	private static void loadGroups(String json, Predicate<HighlightGroup> sink)
+	{
+		if (Strings.isNullOrEmpty(json))
+		{
+			return;
+		}
+
+		try
+		{
+			final HighlightConfigReader.LoadResult result = HighlightConfigReader.readGroups(new StringReader(json), sink);
+			if (result.getDropped() > 0)
+			{
+				log.warn("Skipped {} malformed or duplicate highlight groups", result.getDropped());
+			}
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			log.warn("Unable to read highlight groups", ex);
+		}
+	}
+
+	private static PlayerHighlight readPlayer(String json)
+	{
+		try
+		{
+			return HighlightConfigReader.readPlayer(json);
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			log.warn("Unable to read highlighted player {}", json, ex);
+			return null;
+		}
+	}
+
+	private static String playerKey(String canonicalName)
+	{
+		return PLAYER_KEY_PREFIX + canonicalName.replace(' ', '_');
 	}
 }
@@ -0,0 +1,454 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Highlight rules matching player names by pattern, compiled so matching a name does not scan
+ * the rules one by one. Exact and prefix rules live in a trie walked once along the name.
+ * Wildcard rules are keyed by their longest literal in an {@link AhoCorasick} automaton, so a single pass
+ * over the name finds the few rules worth checking. Regex rules are compiled on their own, so
+ * their group numbers are theirs, and are only tried while they could still beat the best match.
+ * When several rules match, the one listed first wins. Results are cached per canonical name,
+ * a change to the rules compiles a new instance.
+ */
+@Slf4j
+final class PatternRules
+{
+	static final PatternRules EMPTY = new PatternRules(Collections.emptyList(), null);
+
+	private static final int NO_RULE = -1;
+	private static final int MAX_CACHED_NAMES = 4096;
+
+	enum Kind
+	{
+		EXACT,
+		PREFIX,
+		WILDCARD,
+		REGEX
+	}
+
+	@Value
+	static class Rule
+	{
+		Kind kind;
+		/**
+		 * The canonical pattern, or the expression for a regex rule.
+		 */
+		String pattern;
+		/**
+		 * The name of the group whose style applies, or null for the default style.
+		 */
+		String group;
+	}
+
+	@Getter
+	private final List<Rule> rules;
+
+	/**
+	 * The style of rules without a group.
+	 */
+	@Getter
+	private final HighlightStyle defaultStyle;
+
+	private final Node trie = new Node();
+	private final AhoCorasick automaton = new AhoCorasick();
+	// wildcard rules without any literal match every name
+	private final int[] unkeyedRules;
+	private final Pattern[] regexes;
+	private final int[] regexRules;
+
+	private final ConcurrentMap<String, Integer> cache = new ConcurrentHashMap<>();
+
+	private PatternRules(List<Rule> rules, HighlightStyle defaultStyle)
+	{
+		this.rules = rules;
+		this.defaultStyle = defaultStyle;
+
+		final List<Integer> unkeyed = new ArrayList<>();
+		final List<Pattern> patterns = new ArrayList<>();
+		final List<Integer> regexes = new ArrayList<>();
+
+		for (int i = 0; i < rules.size(); i++)
+		{
+			final Rule rule = rules.get(i);
+			switch (rule.getKind())
+			{
+				case EXACT:
+					trie.insert(rule.getPattern()).setExact(i);
+					break;
+				case PREFIX:
+					trie.insert(rule.getPattern().substring(0, rule.getPattern().length() - 1)).setPrefix(i);
+					break;
+				case WILDCARD:
+					final String literal = longestLiteral(rule.getPattern());
+					if (literal.isEmpty())
+					{
+						unkeyed.add(i);
+					}
+					else
+					{
+						automaton.add(literal, i);
+					}
+					break;
+				case REGEX:
+					// already checked to compile by parseRule
+					patterns.add(compile(rule.getPattern()));
+					regexes.add(i);
+					break;
+			}
+		}
+
+		automaton.build();
+		unkeyedRules = unkeyed.stream().mapToInt(Integer::intValue).toArray();
+		regexRules = regexes.stream().mapToInt(Integer::intValue).toArray();
+		this.regexes = patterns.toArray(new Pattern[0]);
+	}
+
+	/**
+	 * Parses one rule per line: {@code Iron *} matches a prefix, {@code *pk*} a wildcard pattern,
+	 * {@code /expression/} a regex and anything else an exact name. A rule may end in
+	 * {@code = group} to use that group's style. Invalid lines are skipped.
+	 */
+	static PatternRules parse(String text, HighlightStyle defaultStyle)
+	{
+		final List<Rule> rules = new ArrayList<>();
+		if (text != null)
+		{
+			for (String line : text.split("\n"))
+			{
+				final Rule rule = parseRule(line.trim());
+				if (rule != null)
+				{
+					rules.add(rule);
+				}
+			}
+		}
+		return new PatternRules(Collections.unmodifiableList(rules), defaultStyle);
+	}
+
+	boolean isEmpty()
+	{
+		return rules.isEmpty();
+	}
+
+	/**
+	 * Finds the first rule matching a canonical name.
+	 *
+	 * @return the index of the rule, or -1 if none matches
+	 */
+	int match(String canonicalName)
+	{
+		if (rules.isEmpty())
+		{
+			return NO_RULE;
+		}
+
+		final Integer cached = cache.get(canonicalName);
+		if (cached != null)
+		{
+			return cached;
+		}
+
+		final int rule = compute(canonicalName);
+		if (cache.size() >= MAX_CACHED_NAMES)
+		{
+			cache.clear();
+		}
+		cache.put(canonicalName, rule);
+		return rule;
+	}
+
+	private int compute(String name)
+	{
+		int best = NO_RULE;
+
+		// exact and prefix rules, walking the trie along the name
+		Node node = trie;
+		for (int i = 0; node != null; i++)
+		{
+			best = first(best, node.prefixRule);
+			if (i == name.length())
+			{
+				best = first(best, node.exactRule);
+				break;
+			}
+			node = node.child(name.charAt(i));
+		}
+
+		// wildcard rules, only checking those whose literal occurs in the name
+		for (int rule : unkeyedRules)
+		{
+			if ((best == NO_RULE || rule < best) && globMatches(rules.get(rule).getPattern(), name))
+			{
+				best = rule;
+			}
+		}
+
+		AhoCorasick.Node state = automaton.start();
+		for (int i = 0; i < name.length(); i++)
+		{
+			state = automaton.next(state, name.charAt(i));
+			for (int rule : state.values())
+			{
+				if ((best == NO_RULE || rule < best) && globMatches(rules.get(rule).getPattern(), name))
+				{
+					best = rule;
+				}
+			}
+		}
+
+		// regex rules in order, the first one that matches is the only one that can win
+		for (int i = 0; i < regexes.length && (best == NO_RULE || regexRules[i] < best); i++)
+		{
+			if (regexes[i].matcher(name).matches())
+			{
+				best = regexRules[i];
+				break;
+			}
+		}
+
+		return best;
+	}
+
+	private static int first(int rule, int other)
+	{
+		if (rule == NO_RULE)
+		{
+			return other;
+		}
+		return other == NO_RULE ? rule : Math.min(rule, other);
+	}
+
+	private static Rule parseRule(String line)
+	{
+		if (line.isEmpty())
+		{
+			return null;
+		}
+
+		if (line.startsWith("/"))
+		{
+			final int end = line.lastIndexOf('/');
+			if (end <= 0)
+			{
+				return null;
+			}
+
+			final String expression = line.substring(1, end);
+			try
+			{
+				compile(expression);
+			}
+			catch (PatternSyntaxException ex)
+			{
+				log.warn("Skipping invalid pattern rule {}", line, ex);
+				return null;
+			}
+			return new Rule(Kind.REGEX, expression, group(line.substring(end + 1)));
+		}
+
+		final int separator = line.indexOf('=');
+		final String pattern = canonicalPattern(separator == -1 ? line : line.substring(0, separator));
+		final String group = separator == -1 ? null : group(line.substring(separator));
+		if (pattern.isEmpty())
+		{
+			return null;
+		}
+
+		final int star = pattern.indexOf('*');
+		if (star == -1)
+		{
+			return new Rule(Kind.EXACT, pattern, group);
+		}
+		if (star == pattern.length() - 1)
+		{
+			return new Rule(Kind.PREFIX, pattern, group);
+		}
+		return new Rule(Kind.WILDCARD, pattern, group);
+	}
+
+	private static Pattern compile(String expression)
+	{
+		return Pattern.compile(expression, Pattern.CASE_INSENSITIVE);
+	}
+
+	/**
+	 * Reads the group of a rule from the text following its pattern, "= name".
+	 */
+	private static String group(String text)
+	{
+		final String trimmed = text.trim();
+		if (!trimmed.startsWith("="))
+		{
+			return null;
+		}
+
+		final String group = trimmed.substring(1).trim();
+		return group.isEmpty() ? null : group;
+	}
+
+	/**
+	 * Canonicalizes a pattern the way names are, keeping its wildcards and spaces around them.
+	 */
+	private static String canonicalPattern(String pattern)
+	{
+		final StringBuilder builder = new StringBuilder(pattern.length());
+		for (int i = 0; i < pattern.length(); i++)
+		{
+			final char c = pattern.charAt(i);
+			if (c == '\u00A0' || c == '_' || c == '-')
+			{
+				builder.append(' ');
+			}
+			else if (c <= 127)
+			{
+				builder.append(Character.toLowerCase(c));
+			}
+		}
+		return builder.toString().trim();
+	}
+
+	private static String longestLiteral(String glob)
+	{
+		String longest = "";
+		for (String part : glob.split("\\*"))
+		{
+			if (part.length() > longest.length())
+			{
+				longest = part;
+			}
+		}
+		return longest;
+	}
+
+	/**
+	 * Matches a pattern where {@code *} stands for any run of characters against the whole text.
+	 */
+	static boolean globMatches(String glob, String text)
+	{
+		int g = 0;
+		int t = 0;
+		int star = -1;
+		int mark = 0;
+
+		while (t < text.length())
+		{
+			if (g < glob.length() && glob.charAt(g) == '*')
+			{
+				star = g++;
+				mark = t;
+			}
+			else if (g < glob.length() && glob.charAt(g) == text.charAt(t))
+			{
+				g++;
+				t++;
+			}
+			else if (star != -1)
+			{
+				g = star + 1;
+				t = ++mark;
+			}
+			else
+			{
+				return false;
+			}
+		}
+
+		while (g < glob.length() && glob.charAt(g) == '*')
+		{
+			g++;
+		}
+		return g == glob.length();
+	}
+
+	/**
+	 * A node of the trie. Names are short and mostly ascii, so children are kept in small arrays
+	 * searched linearly.
+	 */
+	private static final class Node
+	{
+		private char[] labels = new char[0];
+		private Node[] children = new Node[0];
+		private int prefixRule = NO_RULE;
+		private int exactRule = NO_RULE;
+
+		Node child(char c)
+		{
+			for (int i = 0; i < labels.length; i++)
+			{
+				if (labels[i] == c)
+				{
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node insert(String key)
+		{
+			Node node = this;
+			for (int i = 0; i < key.length(); i++)
+			{
+				final char c = key.charAt(i);
+				Node next = node.child(c);
+				if (next == null)
+				{
+					next = new Node();
+					node.labels = Arrays.copyOf(node.labels, node.labels.length + 1);
+					node.children = Arrays.copyOf(node.children, node.children.length + 1);
+					node.labels[node.labels.length - 1] = c;
+					node.children[node.children.length - 1] = next;
+				}
+				node = next;
+			}
+			return node;
+		}
+
+		// the first rule listed wins, so only the lowest index is kept
+		void setExact(int rule)
+		{
+			exactRule = first(exactRule, rule);
+		}
+
+		void setPrefix(int rule)
+		{
+			prefixRule = first(prefixRule, rule);
+		}
+	}
+}
@@ -27,19 +27,95 @@
 package com.pmcolors;
 
 import java.awt.Color;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.Value;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+/**
+ * A highlighted player. Instances are immutable so they can be shared with the client thread
+ * without copying, an edit replaces the player in the {@link HighlightRegistry} instead.
+ * A member of a {@link HighlightGroup} only holds its name and group id, the group's style applies.
+ */
+@Value
+@EqualsAndHashCode(exclude = "style")
+@ToString(exclude = "style")
 public class PlayerHighlight
 {
-    private String name;
-    private Color color;
-    private boolean highlightUsername;
-    private boolean highlightMessage;
-    private boolean highlightLoggedInOut;
+    public static final int NO_GROUP = 0;
+
+    private final String name;
+    private final Color color;
+    private final boolean highlightUsername;
+    private final boolean highlightMessage;
+    private final boolean highlightLoggedInOut;
+
+    /**
+     * The group the player belongs to, or {@link #NO_GROUP}.
+     */
+    private final int groupId;
+
+    // not serialized, derived from the color and flags, null for group members
+    private final transient HighlightStyle style;
+
+    public PlayerHighlight(String name, Color color, boolean highlightUsername, boolean highlightMessage, boolean highlightLoggedInOut)
+    {
+        this(name, color, highlightUsername, highlightMessage, highlightLoggedInOut, NO_GROUP);
+    }
+
+    private PlayerHighlight(String name, Color color, boolean highlightUsername, boolean highlightMessage, boolean highlightLoggedInOut, int groupId)
+    {
+        this.name = name;
+        this.color = color;
+        this.highlightUsername = highlightUsername;
+        this.highlightMessage = highlightMessage;
+        this.highlightLoggedInOut = highlightLoggedInOut;
+        this.groupId = groupId;
+        this.style = color == null ? null : HighlightStyle.of(color, highlightUsername, highlightMessage, highlightLoggedInOut);
+    }
+
+    /**
+     * Creates a member of a group, it has no style of its own.
+     */
+    public static PlayerHighlight member(String name, int groupId)
+    {
+        return new PlayerHighlight(name, null, false, false, false, groupId);
+    }
+
+    public boolean isGrouped()
+    {
+        return groupId != NO_GROUP;
+    }
+
+    public PlayerHighlight withGroupId(int groupId)
+    {
+        return member(name, groupId);
+    }
+
+    /**
+     * Takes the player out of its group, keeping the given style as its own.
+     */
+    public PlayerHighlight withStyle(HighlightStyle style)
+    {
+        return new PlayerHighlight(name, style.getColor(), style.isHighlightUsername(), style.isHighlightMessage(), style.isHighlightLoggedInOut());
+    }
+
+    public PlayerHighlight withColor(Color color)
+    {
+        return new PlayerHighlight(name, color, highlightUsername, highlightMessage, highlightLoggedInOut, groupId);
+    }
+
+    public PlayerHighlight withHighlightUsername(boolean highlightUsername)
+    {
+        return new PlayerHighlight(name, color, highlightUsername, highlightMessage, highlightLoggedInOut, groupId);
+    }
+
+    public PlayerHighlight withHighlightMessage(boolean highlightMessage)
+    {
+        return new PlayerHighlight(name, color, highlightUsername, highlightMessage, highlightLoggedInOut, groupId);
+    }
 
+    public PlayerHighlight withHighlightLoggedInOut(boolean highlightLoggedInOut)
+    {
+        return new PlayerHighlight(name, color, highlightUsername, highlightMessage, highlightLoggedInOut, groupId);
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * The metrics of the plugin's hot paths, kept for as long as the plugin is loaded.
+ */
+@Getter
+public final class PluginMetrics
+{
+	private final HandlerMetrics chatMessage = new HandlerMetrics("Chat messages");
+	private final HandlerMetrics scriptCallback = new HandlerMetrics("Script callbacks");
+	private final HandlerMetrics menuOpened = new HandlerMetrics("Menus opened");
+	private final HandlerMetrics menuOptionClicked = new HandlerMetrics("Menu clicks");
+	private final HandlerMetrics updateConfig = new HandlerMetrics("Highlight edits");
+	private final HandlerMetrics persistence = new HandlerMetrics("Config writes");
+
+	private final List<HandlerMetrics> handlers = ImmutableList.of(chatMessage, scriptCallback, menuOpened,
+		menuOptionClicked, updateConfig, persistence);
+
+	/**
+	 * A plain text table of every handler, as shown in the panel and written by a dump.
+	 */
+	public String format()
+	{
+		final StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-18s %10s %10s %12s %9s %9s %12s%n", "handler", "events", "matches", "total us",
+			"p50 us", "p99 us", "bytes"));
+		for (HandlerMetrics handler : handlers)
+		{
+			sb.append(String.format("%-18s %10d %10d %12d %9.1f %9.1f %12d%n", handler.getName(), handler.getEvents(),
+				handler.getMatches(), handler.getTotalMicros(), handler.getPercentileMicros(50),
+				handler.getPercentileMicros(99), handler.getBytes()));
+		}
+
+		final CacheStats names = CanonicalNames.stats();
+		sb.append(String.format("%nCanonical names: %d hits, %d misses, %.1f%% hit rate%n", names.hitCount(),
+			names.missCount(), names.hitRate() * 100));
+		return sb.toString();
+	}
+
+	public void reset()
+	{
+		handlers.forEach(HandlerMetrics::reset);
+	}
+}
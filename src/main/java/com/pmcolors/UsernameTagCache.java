@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the colored "To"/"From" prefix of private chat lines. The chatbox rebuilds every
+ * visible line on scroll, resize and new messages, so the same few names are looked up over and
+ * over; a hit costs one map probe and allocates nothing. Everything is dropped as soon as a new
+ * snapshot is published. Only used on the client thread.
+ */
+final class UsernameTagCache
+{
+	static final int MAX_ENTRIES = 256;
+
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(MAX_ENTRIES * 4 / 3 + 1, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+		{
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private long version = -1;
+
+	/**
+	 * Returns the prefix to show before {@code rawName}, {@code toFrom} itself when the name is not
+	 * highlighted.
+	 */
+	String get(HighlightSnapshot snapshot, String rawName, String toFrom)
+	{
+		if (snapshot.getVersion() != version)
+		{
+			entries.clear();
+			version = snapshot.getVersion();
+		}
+
+		Entry entry = entries.get(rawName);
+		if (entry == null)
+		{
+			entry = new Entry(snapshot.findStyle(rawName));
+			entries.put(rawName, entry);
+		}
+
+		return entry.get(toFrom);
+	}
+
+	void clear()
+	{
+		entries.clear();
+		version = -1;
+	}
+
+	/**
+	 * The style of one name and its colored prefixes. A conversation shows both "To" and "From"
+	 * lines for the same name, so two prefixes are kept.
+	 */
+	private static final class Entry
+	{
+		private final HighlightStyle style;
+		private String first;
+		private String firstTagged;
+		private String second;
+		private String secondTagged;
+
+		Entry(HighlightStyle style)
+		{
+			this.style = style != null && style.isHighlightUsername() ? style : null;
+		}
+
+		String get(String toFrom)
+		{
+			if (style == null)
+			{
+				return toFrom;
+			}
+
+			if (toFrom.equals(first))
+			{
+				return firstTagged;
+			}
+			if (toFrom.equals(second))
+			{
+				return secondTagged;
+			}
+
+			// the older prefix makes room
+			second = first;
+			secondTagged = firstTagged;
+			first = toFrom;
+			firstTagged = style.getOpenTag() + toFrom;
+			return firstTagged;
+		}
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors;
+
+import java.util.Arrays;
+import net.runelite.api.Client;
+import net.runelite.api.ScriptID;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.api.widgets.WidgetType;
+
+/**
+ * Colors the names of highlighted players in the friends list, the ignore list and the friends
+ * chat member list. The game script lays each row out as widgets at the same y, the name being
+ * the first text widget and the world or status text and icons after it are left alone. A list
+ * is only walked once per pass after it was loaded or rebuilt, or the highlights changed. Only
+ * rows whose widget or text changed since the last pass, or whose name changed color, are
+ * rewritten. Only used on the client thread.
+ */
+final class WidgetRecolorer
+{
+	private final Client client;
+	private final ListState friends = new ListState(WidgetInfo.FRIENDS_LIST);
+	private final ListState ignores = new ListState(WidgetInfo.IGNORE_LIST);
+	private final ListState friendsChat = new ListState(WidgetInfo.FRIENDS_CHAT_LIST);
+	private final ListState[] lists = {friends, ignores, friendsChat};
+
+	private long version = -1;
+
+	WidgetRecolorer(Client client)
+	{
+		this.client = client;
+	}
+
+	/**
+	 * Marks the lists of a widget group for a full pass, e.g. because the group was loaded.
+	 */
+	void markDirty(int groupId)
+	{
+		for (ListState list : lists)
+		{
+			if (list.info.getGroupId() == groupId)
+			{
+				list.forget();
+			}
+		}
+	}
+
+	/**
+	 * Marks the list a script rebuilds, if it is one of ours.
+	 */
+	void scriptRan(int scriptId)
+	{
+		switch (scriptId)
+		{
+			case ScriptID.FRIENDS_UPDATE:
+				friends.dirty = true;
+				break;
+			case ScriptID.IGNORE_UPDATE:
+				ignores.dirty = true;
+				break;
+			case ScriptID.FRIENDS_CHAT_CHANNEL_REBUILD:
+				friendsChat.dirty = true;
+				break;
+		}
+	}
+
+	/**
+	 * Recolors what changed since the last call, meant to be called once per tick.
+	 */
+	void update(HighlightSnapshot snapshot)
+	{
+		final boolean restyled = snapshot.getVersion() != version;
+		version = snapshot.getVersion();
+
+		for (ListState list : lists)
+		{
+			if (restyled)
+			{
+				list.restyled = true;
+				list.dirty = true;
+			}
+
+			if (!list.dirty)
+			{
+				continue;
+			}
+
+			final Widget container = client.getWidget(list.info);
+			if (container == null || container.isHidden())
+			{
+				// it is rebuilt when it shows again
+				continue;
+			}
+
+			final Widget[] children = container.getDynamicChildren();
+			if (children != null)
+			{
+				list.update(snapshot, children);
+			}
+		}
+	}
+
+	/**
+	 * Puts back the original text of every row still showing, for when the plugin stops.
+	 */
+	void restore()
+	{
+		for (ListState list : lists)
+		{
+			final Widget container = client.getWidget(list.info);
+			if (container != null && container.getDynamicChildren() != null)
+			{
+				list.restore(container.getDynamicChildren());
+			}
+			list.forget();
+		}
+	}
+
+	private static boolean sameColor(HighlightStyle a, HighlightStyle b)
+	{
+		return a == b || a != null && b != null && a.getColor().equals(b.getColor());
+	}
+
+	private static final class ListState
+	{
+		private final WidgetInfo info;
+
+		// the rows as of the last pass, with the text the game set and the text we replaced it with
+		private Widget[] rows = new Widget[0];
+		private String[] original = new String[0];
+		private String[] written = new String[0];
+		// the style each row was written with, null if it was left as it is
+		private HighlightStyle[] styles = new HighlightStyle[0];
+		private boolean restyled = true;
+		private boolean dirty = true;
+
+		ListState(WidgetInfo info)
+		{
+			this.info = info;
+		}
+
+		void update(HighlightSnapshot snapshot, Widget[] children)
+		{
+			if (children.length != rows.length)
+			{
+				rows = Arrays.copyOf(rows, children.length);
+				original = Arrays.copyOf(original, children.length);
+				written = Arrays.copyOf(written, children.length);
+				styles = Arrays.copyOf(styles, children.length);
+			}
+
+			boolean named = false;
+			int rowY = 0;
+			for (int i = 0; i < children.length; i++)
+			{
+				final Widget child = children[i];
+				if (child == null)
+				{
+					rows[i] = null;
+					continue;
+				}
+
+				if (i == 0 || child.getOriginalY() != rowY)
+				{
+					rowY = child.getOriginalY();
+					named = false;
+				}
+
+				if (named || child.getType() != WidgetType.TEXT)
+				{
+					// the world, status or an icon of the row
+					rows[i] = null;
+					continue;
+				}
+				named = true;
+
+				final String text = child.getText();
+				final boolean unchanged = child == rows[i] && text != null && text == written[i];
+				if (unchanged && !restyled)
+				{
+					continue;
+				}
+
+				if (!unchanged)
+				{
+					// a new row, or the game set a new text on it
+					rows[i] = child;
+					original[i] = text;
+					styles[i] = null;
+				}
+
+				final String source = original[i];
+				if (source == null || source.isEmpty())
+				{
+					written[i] = text;
+					continue;
+				}
+
+				HighlightStyle style = snapshot.findStyle(source);
+				if (style != null && !style.isHighlightUsername())
+				{
+					style = null;
+				}
+
+				if (unchanged && sameColor(style, styles[i]))
+				{
+					// restyled, but not this name
+					styles[i] = style;
+					continue;
+				}
+				styles[i] = style;
+
+				final String target = style != null ? ColorTagRewriter.recolor(source, style) : source;
+
+				if (!target.equals(text))
+				{
+					child.setText(target);
+				}
+				written[i] = child.getText();
+			}
+
+			restyled = false;
+			dirty = false;
+		}
+
+		void restore(Widget[] children)
+		{
+			for (int i = 0; i < children.length && i < rows.length; i++)
+			{
+				if (children[i] != null && children[i] == rows[i] && children[i].getText() == written[i]
+					&& original[i] != null)
+				{
+					children[i].setText(original[i]);
+				}
+			}
+		}
+
+		void forget()
+		{
+			rows = new Widget[0];
+			original = new String[0];
+			written = new String[0];
+			styles = new HighlightStyle[0];
+			restyled = true;
+			dirty = true;
+		}
+	}
+}
@@ -221,11 +221,8 @@ public class AddPlayerPanel extends JPanel
 
     private void openPlayerColorPicker()
     {
-        RuneliteColorPicker colorPicker = plugin.getColorPickerManager().create(
-                SwingUtilities.windowForComponent(this),
-                colorInput.getBackground(),
-                nameInput.getText() + " highlight color",
-                true);
+        RuneliteColorPicker colorPicker = plugin.openColorPicker(this, colorInput.getBackground(),
+                nameInput.getText() + " highlight color");
         colorPicker.setLocation(getLocationOnScreen());
         colorPicker.setOnColorChange(c ->
         {
@@ -233,7 +230,6 @@ public class AddPlayerPanel extends JPanel
             colorInput.setBackground(selectedColor.darker());
             colorInput.setText(colorToHex(selectedColor));
         });
-        colorPicker.setOnClose(c -> plugin.updateConfig());
         colorPicker.setVisible(true);
     }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors.ui;
+
+import com.pmcolors.HandlerMetrics;
+import com.pmcolors.PMColorsPlugin;
+import com.pmcolors.PluginMetrics;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A collapsible section showing the plugin's hot path metrics. The numbers are only refreshed
+ * while the section is open.
+ */
+class DiagnosticsPanel extends JPanel
+{
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final PMColorsPlugin plugin;
+
+    private final JLabel header = new JLabel();
+    private final JPanel content = new JPanel(new BorderLayout(0, 5));
+    private final JTextArea stats = new JTextArea();
+    private final JLabel status = new JLabel();
+    private final Timer refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+
+    DiagnosticsPanel(PMColorsPlugin plugin)
+    {
+        this.plugin = plugin;
+
+        setLayout(new BorderLayout(0, 5));
+        setBorder(new EmptyBorder(10, 0, 0, 0));
+        setOpaque(false);
+
+        header.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        header.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        header.addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mousePressed(MouseEvent mouseEvent)
+            {
+                setExpanded(!content.isVisible());
+            }
+
+            @Override
+            public void mouseEntered(MouseEvent mouseEvent)
+            {
+                header.setForeground(Color.WHITE);
+            }
+
+            @Override
+            public void mouseExited(MouseEvent mouseEvent)
+            {
+                header.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+            }
+        });
+
+        stats.setEditable(false);
+        stats.setFocusable(false);
+        stats.setFont(FontManager.getRunescapeSmallFont());
+        stats.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        stats.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        stats.setBorder(new EmptyBorder(5, 5, 5, 5));
+
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        actions.setOpaque(false);
+        status.setFont(FontManager.getRunescapeSmallFont());
+        status.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        actions.add(status);
+        actions.add(new ActionLabel("Reset", () ->
+        {
+            plugin.getMetrics().reset();
+            refresh();
+        }));
+        actions.add(new ActionLabel("Dump", this::dump));
+
+        content.setOpaque(false);
+        content.add(stats, BorderLayout.CENTER);
+        content.add(actions, BorderLayout.SOUTH);
+
+        add(header, BorderLayout.NORTH);
+        add(content, BorderLayout.CENTER);
+
+        setExpanded(false);
+    }
+
+    void setExpanded(boolean expanded)
+    {
+        header.setText(expanded ? "Hide diagnostics" : "Show diagnostics");
+        content.setVisible(expanded);
+        status.setText("");
+
+        if (expanded)
+        {
+            refresh();
+            refreshTimer.start();
+        }
+        else
+        {
+            refreshTimer.stop();
+        }
+
+        revalidate();
+    }
+
+    /**
+     * Stops refreshing, for when the panel goes away.
+     */
+    void stop()
+    {
+        refreshTimer.stop();
+    }
+
+    private void refresh()
+    {
+        final PluginMetrics metrics = plugin.getMetrics();
+        final StringBuilder sb = new StringBuilder();
+        for (HandlerMetrics handler : metrics.getHandlers())
+        {
+            if (sb.length() > 0)
+            {
+                sb.append('\n');
+            }
+
+            sb.append(handler.getName()).append('\n')
+                .append(String.format("  %d seen, %d matched, %d ms%n", handler.getEvents(), handler.getMatches(),
+                    handler.getTotalMicros() / 1000))
+                .append(String.format("  p50 %.1f us, p99 %.1f us", handler.getPercentileMicros(50),
+                    handler.getPercentileMicros(99)));
+            if (handler.getBytes() > 0)
+            {
+                sb.append(String.format(", %d bytes", handler.getBytes()));
+            }
+        }
+        stats.setText(sb.toString());
+    }
+
+    private void dump()
+    {
+        try
+        {
+            final File file = plugin.dumpMetrics();
+            status.setText("Saved " + file.getName());
+            status.setToolTipText(file.getAbsolutePath());
+        }
+        catch (IOException ex)
+        {
+            status.setText("Unable to save");
+            status.setToolTipText(ex.getMessage());
+        }
+    }
+}
@@ -30,20 +30,30 @@
 
 package com.pmcolors.ui;
 
+import com.pmcolors.HighlightExchange;
+import com.pmcolors.HighlightGroup;
+import com.pmcolors.HighlightListener;
 import com.pmcolors.PMColorsPlugin;
 import com.pmcolors.PlayerHighlight;
 import lombok.Getter;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.PluginPanel;
+import net.runelite.client.ui.components.IconTextField;
 import net.runelite.client.ui.components.PluginErrorPanel;
 import net.runelite.client.util.ImageUtil;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class PMColorsPanel extends PluginPanel
 {
@@ -52,12 +62,63 @@ public class PMColorsPanel extends PluginPanel
 
     private final JLabel addHighlightedPlayer = new JLabel(ADD_ICON);
     private final JLabel title = new JLabel();
+    private final IconTextField searchBar = new IconTextField();
 
     private final PluginErrorPanel noPlayersPanel = new PluginErrorPanel();
     private final JPanel playerView = new JPanel(new GridBagLayout());
+    private final PlayerHighlightListModel playerListModel = new PlayerHighlightListModel();
+    private final PlayerHighlightList playerList;
+    private final DiagnosticsPanel diagnosticsPanel;
 
     private PMColorsPlugin plugin;
 
+    // registry events arrive on whichever thread made the change, the model is only touched on the EDT
+    private final HighlightListener registryListener = new HighlightListener()
+    {
+        @Override
+        public void playerAdded(int index, PlayerHighlight player)
+        {
+            SwingUtilities.invokeLater(() ->
+            {
+                playerListModel.playerAdded(index, player);
+                updateEmptyState();
+            });
+        }
+
+        @Override
+        public void playerRemoved(int index, PlayerHighlight player)
+        {
+            SwingUtilities.invokeLater(() ->
+            {
+                playerListModel.playerRemoved(index);
+                updateEmptyState();
+            });
+        }
+
+        @Override
+        public void playerChanged(int index, PlayerHighlight player)
+        {
+            SwingUtilities.invokeLater(() -> playerListModel.playerChanged(index, player));
+        }
+
+        @Override
+        public void playersReset(List<PlayerHighlight> players)
+        {
+            SwingUtilities.invokeLater(() ->
+            {
+                playerListModel.setPlayers(players);
+                updateEmptyState();
+            });
+        }
+
+        @Override
+        public void groupsChanged(List<HighlightGroup> groups)
+        {
+            // the rows resolve their group's style when painted
+            SwingUtilities.invokeLater(playerList::repaint);
+        }
+    };
+
     @Getter
     private AddPlayerPanel addPlayerPanel;
     static
@@ -74,7 +135,7 @@ public class PMColorsPanel extends PluginPanel
         setLayout(new BorderLayout());
         setBorder(new EmptyBorder(10, 10, 10, 10));
 
-        JPanel northPanel = new JPanel(new BorderLayout());
+        JPanel northPanel = new JPanel(new BorderLayout(0, 10));
         northPanel.setBorder(new EmptyBorder(1, 0, 10, 0));
 
         title.setText("PM Colors");
@@ -83,6 +144,32 @@ public class PMColorsPanel extends PluginPanel
         northPanel.add(title, BorderLayout.WEST);
         northPanel.add(addHighlightedPlayer, BorderLayout.EAST);
 
+        searchBar.setIcon(IconTextField.Icon.SEARCH);
+        searchBar.setPreferredSize(new Dimension(PluginPanel.PANEL_WIDTH - 20, 30));
+        searchBar.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        searchBar.setHoverBackgroundColor(ColorScheme.DARK_GRAY_HOVER_COLOR);
+        searchBar.getDocument().addDocumentListener(new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                playerListModel.setFilter(searchBar.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                playerListModel.setFilter(searchBar.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+            }
+        });
+
+        northPanel.add(searchBar, BorderLayout.SOUTH);
+
         JPanel centerPanel = new JPanel(new BorderLayout());
         centerPanel.setBackground(ColorScheme.DARK_GRAY_COLOR);
 
@@ -94,6 +181,10 @@ public class PMColorsPanel extends PluginPanel
         constraints.gridx = 0;
         constraints.gridy = 0;
 
+        playerList = new PlayerHighlightList(plugin, playerListModel);
+        playerView.add(playerList, constraints);
+        constraints.gridy++;
+
         noPlayersPanel.setContent("PM Colors", "Assign colors to players in your private messages");
         noPlayersPanel.setVisible(false);
 
@@ -131,60 +222,146 @@ public class PMColorsPanel extends PluginPanel
 
         centerPanel.add(playerView, BorderLayout.CENTER);
 
+        JPanel transferActions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        transferActions.setOpaque(false);
+        transferActions.setBorder(new EmptyBorder(10, 0, 0, 0));
+        transferActions.add(new ActionLabel("Import", this::importHighlights));
+        transferActions.add(new ActionLabel("Export", this::exportHighlights));
+
+        diagnosticsPanel = new DiagnosticsPanel(plugin);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.setOpaque(false);
+        southPanel.add(transferActions, BorderLayout.NORTH);
+        southPanel.add(diagnosticsPanel, BorderLayout.CENTER);
+        centerPanel.add(southPanel, BorderLayout.SOUTH);
+
         add(northPanel, BorderLayout.NORTH);
         add(centerPanel, BorderLayout.CENTER);
     }
 
-    public void rebuild()
+    /**
+     * Fills the list with the current players and starts following the registry's changes.
+     */
+    public void attach()
     {
-        GridBagConstraints constraints = new GridBagConstraints();
-        constraints.fill = GridBagConstraints.HORIZONTAL;
-        constraints.weightx = 1;
-        constraints.gridx = 0;
-        constraints.gridy = 0;
+        playerListModel.setPlayers(plugin.getRegistry().addListener(registryListener));
+        updateEmptyState();
+    }
+
+    public void detach()
+    {
+        plugin.getRegistry().removeListener(registryListener);
+        diagnosticsPanel.stop();
+    }
 
-        playerView.removeAll();
+    /* Enables/Disables new marker creation mode */
+    public void setCreation(boolean on)
+    {
+        addPlayerPanel.setVisible(on);
+        addHighlightedPlayer.setVisible(!on);
+        updateEmptyState();
+    }
 
-        for (final PlayerHighlight marker : plugin.getHighlightedPlayers())
+    private void importHighlights()
+    {
+        final JFileChooser chooser = createFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION)
         {
-            playerView.add(new PlayerHighlightPanel(plugin, marker), constraints);
-            constraints.gridy++;
-
-            playerView.add(Box.createRigidArea(new Dimension(0, 5)), constraints);
-            constraints.gridy++;
+            return;
         }
 
-        boolean empty = constraints.gridy == 0;
-        noPlayersPanel.setVisible(empty);
-        title.setVisible(!empty);
-
-        playerView.add(noPlayersPanel, constraints);
-        constraints.gridy++;
+        final Object[] modes = {"Merge", "Replace", "Cancel"};
+        final int mode = JOptionPane.showOptionDialog(this,
+            "Merge the file into your highlights, or replace them with it?", "Import highlights",
+            JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, modes, modes[0]);
+        if (mode != 0 && mode != 1)
+        {
+            return;
+        }
 
-        playerView.add(addPlayerPanel, constraints);
-        constraints.gridy++;
+        final File file = chooser.getSelectedFile();
+        new SwingWorker<HighlightExchange.Result, Void>()
+        {
+            @Override
+            protected HighlightExchange.Result doInBackground() throws Exception
+            {
+                return plugin.importHighlights(file, mode == 1);
+            }
 
-        repaint();
-        revalidate();
+            @Override
+            protected void done()
+            {
+                try
+                {
+                    final HighlightExchange.Result result = get();
+                    JOptionPane.showMessageDialog(PMColorsPanel.this, String.format(
+                        "Added %d, updated %d and removed %d players, skipped %d invalid or duplicate rows.",
+                        result.getAdded(), result.getUpdated(), result.getRemoved(), result.getDropped()),
+                        "Import highlights", JOptionPane.INFORMATION_MESSAGE);
+                }
+                catch (InterruptedException | ExecutionException ex)
+                {
+                    showTransferError("Import highlights", ex);
+                }
+            }
+        }.execute();
     }
 
-
-    /* Enables/Disables new marker creation mode */
-    public void setCreation(boolean on)
+    private void exportHighlights()
     {
-        if (on)
+        final JFileChooser chooser = createFileChooser();
+        chooser.setSelectedFile(new File("pmcolors.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
         {
-            noPlayersPanel.setVisible(false);
-            title.setVisible(true);
+            return;
         }
-        else
+
+        final File file = chooser.getSelectedFile();
+        new SwingWorker<Void, Void>()
         {
-            boolean empty = plugin.getHighlightedPlayers().isEmpty();
-            noPlayersPanel.setVisible(empty);
-            title.setVisible(!empty);
-        }
+            @Override
+            protected Void doInBackground() throws Exception
+            {
+                plugin.exportHighlights(file);
+                return null;
+            }
 
-        addPlayerPanel.setVisible(on);
-        addHighlightedPlayer.setVisible(!on);
+            @Override
+            protected void done()
+            {
+                try
+                {
+                    get();
+                }
+                catch (InterruptedException | ExecutionException ex)
+                {
+                    showTransferError("Export highlights", ex);
+                }
+            }
+        }.execute();
+    }
+
+    private static JFileChooser createFileChooser()
+    {
+        final JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV or json files", "csv", "json"));
+        return chooser;
+    }
+
+    private void showTransferError(String title, Exception ex)
+    {
+        final Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+        JOptionPane.showMessageDialog(this, "Unable to read or write the file: " + cause.getMessage(), title,
+            JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void updateEmptyState()
+    {
+        boolean empty = playerListModel.getPlayerCount() == 0;
+        boolean creating = addPlayerPanel.isVisible();
+        noPlayersPanel.setVisible(empty && !creating);
+        title.setVisible(!empty || creating);
+        searchBar.setVisible(!empty);
     }
 }
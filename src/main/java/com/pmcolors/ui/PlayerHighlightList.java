@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors.ui;
+
+import com.pmcolors.HighlightGroup;
+import com.pmcolors.HighlightSnapshot;
+import com.pmcolors.PMColorsPlugin;
+import com.pmcolors.PlayerHighlight;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.components.colorpicker.RuneliteColorPicker;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * Lists the highlighted players with a single shared row renderer, so only the visible rows are
+ * ever painted and no components exist per player. One mouse listener hit-tests the fixed row
+ * regions and keeps the hover state.
+ */
+class PlayerHighlightList extends JList<PlayerHighlight>
+{
+    private static final PlayerHighlight PROTOTYPE = new PlayerHighlight("Prototype", Color.WHITE, true, true, true);
+
+    private final PMColorsPlugin plugin;
+    private final PlayerHighlightListModel model;
+    private final PlayerHighlightRow renderer = new PlayerHighlightRow();
+
+    private int hoveredIndex = -1;
+    private RowAction hoveredAction = RowAction.NONE;
+
+    PlayerHighlightList(PMColorsPlugin plugin, PlayerHighlightListModel model)
+    {
+        super(model);
+        this.plugin = plugin;
+        this.model = model;
+
+        setBackground(ColorScheme.DARK_GRAY_COLOR);
+        setFocusable(false);
+        setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        setCellRenderer(renderer);
+        // fixes the cell size so the list never measures every row
+        setPrototypeCellValue(PROTOTYPE);
+
+        final MouseAdapter mouseAdapter = new MouseAdapter()
+        {
+            @Override
+            public void mousePressed(MouseEvent mouseEvent)
+            {
+                final int index = rowAt(mouseEvent.getPoint());
+                if (index == -1)
+                {
+                    return;
+                }
+
+                if (SwingUtilities.isRightMouseButton(mouseEvent))
+                {
+                    showGroupMenu(model.getElementAt(index), mouseEvent.getPoint());
+                }
+                else
+                {
+                    perform(index, actionAt(index, mouseEvent.getPoint()));
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent mouseEvent)
+            {
+                final int index = rowAt(mouseEvent.getPoint());
+                setHover(index, index == -1 ? RowAction.NONE : actionAt(index, mouseEvent.getPoint()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent mouseEvent)
+            {
+                setHover(-1, RowAction.NONE);
+            }
+        };
+        addMouseListener(mouseAdapter);
+        addMouseMotionListener(mouseAdapter);
+    }
+
+    HighlightSnapshot getSnapshot()
+    {
+        return plugin.getRegistry().getSnapshot();
+    }
+
+    RowAction getHoveredAction(int index)
+    {
+        return index == hoveredIndex ? hoveredAction : RowAction.NONE;
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event)
+    {
+        final int index = rowAt(event.getPoint());
+        return index == -1 ? null : actionAt(index, event.getPoint()).getTooltip();
+    }
+
+    private int rowAt(Point point)
+    {
+        final int index = locationToIndex(point);
+        if (index == -1 || !getCellBounds(index, index).contains(point))
+        {
+            return -1;
+        }
+        return index;
+    }
+
+    private RowAction actionAt(int index, Point point)
+    {
+        final Rectangle bounds = getCellBounds(index, index);
+        return PlayerHighlightRow.actionAt(bounds.width, point.x - bounds.x, point.y - bounds.y);
+    }
+
+    private void setHover(int index, RowAction action)
+    {
+        if (index == hoveredIndex && action == hoveredAction)
+        {
+            return;
+        }
+
+        repaintRow(hoveredIndex);
+        hoveredIndex = index;
+        hoveredAction = action;
+        repaintRow(hoveredIndex);
+    }
+
+    private void repaintRow(int index)
+    {
+        if (index != -1 && index < model.getSize())
+        {
+            repaint(getCellBounds(index, index));
+        }
+    }
+
+    private void perform(int index, RowAction action)
+    {
+        final PlayerHighlight player = model.getElementAt(index);
+        // the style of a group member belongs to the group, edit that instead
+        final HighlightGroup group = getSnapshot().getGroup(player.getGroupId());
+        switch (action)
+        {
+            case COLOR:
+                if (group != null)
+                {
+                    openGroupColorPicker(index, group);
+                }
+                else if (!player.isGrouped())
+                {
+                    openPlayerColorPicker(index, player);
+                }
+                break;
+            case MESSAGE:
+                if (group != null)
+                {
+                    plugin.updateGroup(group.withHighlightMessage(!group.isHighlightMessage()));
+                }
+                else if (!player.isGrouped())
+                {
+                    plugin.updateConfig(player.withHighlightMessage(!player.isHighlightMessage()));
+                }
+                break;
+            case NAME:
+                if (group != null)
+                {
+                    plugin.updateGroup(group.withHighlightUsername(!group.isHighlightUsername()));
+                }
+                else if (!player.isGrouped())
+                {
+                    plugin.updateConfig(player.withHighlightUsername(!player.isHighlightUsername()));
+                }
+                break;
+            case LOGINOUT:
+                if (group != null)
+                {
+                    plugin.updateGroup(group.withHighlightLoggedInOut(!group.isHighlightLoggedInOut()));
+                }
+                else if (!player.isGrouped())
+                {
+                    plugin.updateConfig(player.withHighlightLoggedInOut(!player.isHighlightLoggedInOut()));
+                }
+                break;
+            case DELETE:
+                int confirm = JOptionPane.showConfirmDialog(this,
+                        "Are you sure you want to permanently delete this player highlight?",
+                        "Warning", JOptionPane.OK_CANCEL_OPTION);
+
+                if (confirm == 0)
+                {
+                    plugin.deleteHighlight(player);
+                }
+                break;
+        }
+    }
+
+    private void openPlayerColorPicker(int index, PlayerHighlight player)
+    {
+        final Point location = getCellBounds(index, index).getLocation();
+        SwingUtilities.convertPointToScreen(location, this);
+
+        RuneliteColorPicker colorPicker = plugin.openColorPicker(this, player.getColor(),
+                player.getName() + " highlight color");
+        colorPicker.setLocation(location);
+        // the chat follows the picker while it is open, the color is saved when it closes
+        plugin.previewPlayerColor(colorPicker, player);
+        colorPicker.setVisible(true);
+    }
+
+    private void openGroupColorPicker(int index, HighlightGroup group)
+    {
+        final Point location = getCellBounds(index, index).getLocation();
+        SwingUtilities.convertPointToScreen(location, this);
+
+        RuneliteColorPicker colorPicker = plugin.openColorPicker(this, group.getColor(),
+                group.getName() + " group color");
+        colorPicker.setLocation(location);
+        plugin.previewGroupColor(colorPicker, group);
+        colorPicker.setVisible(true);
+    }
+
+    private void showGroupMenu(PlayerHighlight player, Point point)
+    {
+        final HighlightSnapshot snapshot = getSnapshot();
+        final HighlightGroup current = snapshot.getGroup(player.getGroupId());
+        final JPopupMenu menu = new JPopupMenu();
+
+        final JMenu moveTo = new JMenu("Move to group");
+        for (HighlightGroup group : snapshot.getGroups())
+        {
+            final JCheckBoxMenuItem item = new JCheckBoxMenuItem(group.getName(), group == current);
+            item.addActionListener(e -> plugin.setGroup(player, group));
+            moveTo.add(item);
+        }
+        if (!snapshot.getGroups().isEmpty())
+        {
+            moveTo.addSeparator();
+        }
+
+        final JMenuItem newGroup = new JMenuItem("New group...");
+        newGroup.addActionListener(e ->
+        {
+            final String name = promptGroupName("New group", "");
+            if (name != null)
+            {
+                plugin.createGroup(name, player);
+            }
+        });
+        moveTo.add(newGroup);
+        menu.add(moveTo);
+
+        if (current != null)
+        {
+            final JMenuItem leave = new JMenuItem("Remove from " + current.getName());
+            leave.addActionListener(e -> plugin.setGroup(player, null));
+            menu.add(leave);
+
+            menu.addSeparator();
+
+            final JMenuItem rename = new JMenuItem("Rename group...");
+            rename.addActionListener(e ->
+            {
+                final String name = promptGroupName("Rename group", current.getName());
+                if (name != null)
+                {
+                    plugin.updateGroup(current.withName(name));
+                }
+            });
+            menu.add(rename);
+
+            final JMenuItem delete = new JMenuItem("Delete group");
+            delete.addActionListener(e ->
+            {
+                int confirm = JOptionPane.showConfirmDialog(this,
+                        "Delete the " + current.getName() + " group? Its players keep their current style.",
+                        "Warning", JOptionPane.OK_CANCEL_OPTION);
+
+                if (confirm == 0)
+                {
+                    plugin.deleteGroup(current);
+                }
+            });
+            menu.add(delete);
+        }
+
+        menu.show(this, point.x, point.y);
+    }
+
+    private String promptGroupName(String title, String initial)
+    {
+        final Object name = JOptionPane.showInputDialog(this, "Group name", title,
+                JOptionPane.PLAIN_MESSAGE, null, null, initial);
+        if (name == null || name.toString().trim().isEmpty())
+        {
+            return null;
+        }
+        return name.toString().trim();
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors.ui;
+
+import com.pmcolors.HighlightRegistry;
+import com.pmcolors.PlayerHighlight;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The highlighted players shown by the panel. It mirrors the registry by replaying its change
+ * events on the EDT, so each change only touches the affected row. While a search filter is set
+ * it shows the range of the prefix index matching it instead, in name order.
+ */
+class PlayerHighlightListModel extends AbstractListModel<PlayerHighlight>
+{
+    private final List<PlayerHighlight> players = new ArrayList<>();
+
+    // built the first time a filter is set, kept up to date from then on
+    private PlayerPrefixIndex index;
+
+    // the canonical filter, null while every player is shown
+    private String filter;
+    private int filterFrom;
+    private int filterTo;
+
+    void setPlayers(List<PlayerHighlight> players)
+    {
+        final int oldSize = getSize();
+        this.players.clear();
+        this.players.addAll(players);
+
+        if (index != null)
+        {
+            index.setPlayers(players);
+        }
+        if (filter != null)
+        {
+            narrow(filter, 0, index.size());
+        }
+        fireResized(oldSize);
+    }
+
+    /**
+     * Shows only the players whose name starts with the given text, or every player if it is empty.
+     */
+    void setFilter(String text)
+    {
+        final String canonical = HighlightRegistry.canonicalName(text);
+        final int oldSize = getSize();
+
+        if (canonical.isEmpty())
+        {
+            filter = null;
+        }
+        else
+        {
+            if (index == null)
+            {
+                index = new PlayerPrefixIndex();
+                index.setPlayers(players);
+            }
+
+            // typing ahead only narrows the current range
+            if (filter != null && canonical.startsWith(filter))
+            {
+                narrow(canonical, filterFrom, filterTo);
+            }
+            else
+            {
+                narrow(canonical, 0, index.size());
+            }
+            filter = canonical;
+        }
+
+        fireResized(oldSize);
+    }
+
+    void playerAdded(int index, PlayerHighlight player)
+    {
+        players.add(index, player);
+        if (this.index != null)
+        {
+            this.index.add(player);
+        }
+
+        if (filter == null)
+        {
+            fireIntervalAdded(this, index, index);
+        }
+        else
+        {
+            refilter();
+        }
+    }
+
+    void playerRemoved(int index)
+    {
+        final PlayerHighlight player = players.remove(index);
+        if (this.index != null)
+        {
+            this.index.remove(player);
+        }
+
+        if (filter == null)
+        {
+            fireIntervalRemoved(this, index, index);
+        }
+        else
+        {
+            refilter();
+        }
+    }
+
+    void playerChanged(int index, PlayerHighlight player)
+    {
+        final PlayerHighlight previous = players.set(index, player);
+        if (this.index != null)
+        {
+            this.index.replace(previous, player);
+        }
+
+        if (filter == null)
+        {
+            fireContentsChanged(this, index, index);
+        }
+        else if (getSize() > 0)
+        {
+            fireContentsChanged(this, 0, getSize() - 1);
+        }
+    }
+
+    /**
+     * @return the number of highlighted players, regardless of the filter
+     */
+    int getPlayerCount()
+    {
+        return players.size();
+    }
+
+    @Override
+    public int getSize()
+    {
+        return filter == null ? players.size() : filterTo - filterFrom;
+    }
+
+    @Override
+    public PlayerHighlight getElementAt(int index)
+    {
+        return filter == null ? players.get(index) : this.index.get(filterFrom + index);
+    }
+
+    private void refilter()
+    {
+        final int oldSize = getSize();
+        narrow(filter, 0, index.size());
+        fireResized(oldSize);
+    }
+
+    private void narrow(String prefix, int from, int to)
+    {
+        filterFrom = index.lowerBound(prefix, from, to);
+        filterTo = index.upperBound(prefix, filterFrom, to);
+    }
+
+    private void fireResized(int oldSize)
+    {
+        final int newSize = getSize();
+        final int common = Math.min(oldSize, newSize);
+        if (common > 0)
+        {
+            fireContentsChanged(this, 0, common - 1);
+        }
+
+        if (newSize > oldSize)
+        {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+        else if (newSize < oldSize)
+        {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        }
+    }
+}
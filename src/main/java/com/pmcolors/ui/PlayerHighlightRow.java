@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors.ui;
+
+import com.pmcolors.HighlightGroup;
+import com.pmcolors.HighlightSnapshot;
+import com.pmcolors.HighlightStyle;
+import com.pmcolors.PlayerHighlight;
+import net.runelite.client.ui.ColorScheme;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Paints a highlighted player row directly instead of through a tree of labels. A single
+ * instance renders every row of the list, and the row regions are fixed so hit-testing is plain
+ * arithmetic.
+ */
+class PlayerHighlightRow extends JComponent implements ListCellRenderer<PlayerHighlight>
+{
+    private static final int NAME_HEIGHT = 26;
+    private static final int PADDING = 8;
+    private static final int COLOR_BAR_HEIGHT = 3;
+    private static final int ACTIONS_Y = NAME_HEIGHT + PADDING;
+    // the gap that used to be placed between the rows
+    private static final int ROW_GAP = 5;
+    private static final int ROW_HEIGHT = ACTIONS_Y + RowIcons.SIZE + COLOR_BAR_HEIGHT + PADDING + ROW_GAP;
+
+    // left to right, the delete action sits on its own at the right edge
+    private static final RowAction[] LEFT_ACTIONS = {RowAction.COLOR, RowAction.MESSAGE, RowAction.NAME, RowAction.LOGINOUT};
+    private static final int ROW_WIDTH = PADDING + (LEFT_ACTIONS.length + 1) * (RowIcons.SIZE + PADDING) + PADDING;
+
+    private PlayerHighlight player;
+    // the style of the player's group for a group member, null if it could not be resolved
+    private HighlightStyle style;
+    private String groupName;
+    private RowAction hovered = RowAction.NONE;
+
+    PlayerHighlightRow()
+    {
+        setOpaque(true);
+        setForeground(Color.WHITE);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends PlayerHighlight> list, PlayerHighlight playerHighlight,
+                                                  int index, boolean isSelected, boolean cellHasFocus)
+    {
+        player = playerHighlight;
+        style = player.getStyle();
+        groupName = null;
+        hovered = RowAction.NONE;
+
+        if (list instanceof PlayerHighlightList)
+        {
+            final PlayerHighlightList highlightList = (PlayerHighlightList) list;
+            final HighlightSnapshot snapshot = highlightList.getSnapshot();
+            final HighlightGroup group = snapshot.getGroup(player.getGroupId());
+            style = snapshot.styleOf(player);
+            groupName = group == null ? null : group.getName();
+            hovered = highlightList.getHoveredAction(index);
+        }
+        setFont(list.getFont());
+        return this;
+    }
+
+    @Override
+    public Dimension getPreferredSize()
+    {
+        return new Dimension(ROW_WIDTH, ROW_HEIGHT);
+    }
+
+    /**
+     * Finds the action under a point of a row of the given width.
+     */
+    static RowAction actionAt(int width, int x, int y)
+    {
+        if (y < ACTIONS_Y || y >= ACTIONS_Y + RowIcons.SIZE + COLOR_BAR_HEIGHT)
+        {
+            return RowAction.NONE;
+        }
+
+        if (x >= deleteX(width) && x < deleteX(width) + RowIcons.SIZE)
+        {
+            return RowAction.DELETE;
+        }
+
+        final int offset = x - PADDING;
+        final int slot = offset / (RowIcons.SIZE + PADDING);
+        if (offset < 0 || slot >= LEFT_ACTIONS.length || offset % (RowIcons.SIZE + PADDING) >= RowIcons.SIZE)
+        {
+            return RowAction.NONE;
+        }
+        return LEFT_ACTIONS[slot];
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics)
+    {
+        final int width = getWidth();
+        final int height = getHeight() - ROW_GAP;
+
+        graphics.setColor(ColorScheme.DARKER_GRAY_COLOR);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(ColorScheme.DARK_GRAY_COLOR);
+        graphics.fillRect(0, NAME_HEIGHT - 1, width, 1);
+        graphics.fillRect(0, height, width, ROW_GAP);
+
+        if (player == null)
+        {
+            return;
+        }
+
+        graphics.setFont(getFont());
+        final FontMetrics metrics = graphics.getFontMetrics();
+        final int baseline = (NAME_HEIGHT - 1 - metrics.getHeight()) / 2 + metrics.getAscent();
+
+        int nameRight = width - PADDING;
+        if (groupName != null)
+        {
+            final int groupWidth = metrics.stringWidth(groupName);
+            graphics.setColor(ColorScheme.LIGHT_GRAY_COLOR);
+            graphics.drawString(groupName, nameRight - groupWidth, baseline);
+            nameRight -= groupWidth + PADDING;
+        }
+
+        final Shape clip = graphics.getClip();
+        graphics.clipRect(PADDING, 0, Math.max(0, nameRight - PADDING), NAME_HEIGHT - 1);
+        graphics.setColor(getForeground());
+        graphics.drawString(player.getName(), PADDING + 1, baseline);
+        graphics.setClip(clip);
+
+        for (int i = 0; i < LEFT_ACTIONS.length; i++)
+        {
+            final RowAction action = LEFT_ACTIONS[i];
+            RowIcons.paint(graphics, action, isEnabled(action), action == hovered, actionX(i), ACTIONS_Y);
+        }
+        RowIcons.paint(graphics, RowAction.DELETE, true, hovered == RowAction.DELETE, deleteX(width), ACTIONS_Y);
+
+        if (style != null)
+        {
+            graphics.setColor(style.getColor());
+            graphics.fillRect(actionX(0), ACTIONS_Y + RowIcons.SIZE, RowIcons.SIZE, COLOR_BAR_HEIGHT);
+        }
+    }
+
+    private boolean isEnabled(RowAction action)
+    {
+        switch (action)
+        {
+            case MESSAGE:
+                return style != null && style.isHighlightMessage();
+            case NAME:
+                return style != null && style.isHighlightUsername();
+            case LOGINOUT:
+                return style != null && style.isHighlightLoggedInOut();
+            default:
+                return true;
+        }
+    }
+
+    private static int actionX(int slot)
+    {
+        return PADDING + slot * (RowIcons.SIZE + PADDING);
+    }
+
+    private static int deleteX(int width)
+    {
+        return width - PADDING - RowIcons.SIZE;
+    }
+
+    // the renderer is painted through a CellRendererPane, skip the repaint and revalidate requests it would otherwise queue
+    @Override
+    public void invalidate()
+    {
+    }
+
+    @Override
+    public void validate()
+    {
+    }
+
+    @Override
+    public void revalidate()
+    {
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height)
+    {
+    }
+
+    @Override
+    public void repaint(Rectangle rectangle)
+    {
+    }
+
+    @Override
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue)
+    {
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors.ui;
+
+import com.pmcolors.HighlightRegistry;
+import com.pmcolors.PlayerHighlight;
+import lombok.AllArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The highlighted players sorted by canonical name. Every player whose name starts with a prefix
+ * sits in one contiguous range, which two binary searches find, and a longer prefix only ever
+ * narrows the previous range.
+ */
+class PlayerPrefixIndex
+{
+    private String[] names = new String[0];
+    private PlayerHighlight[] players = new PlayerHighlight[0];
+    private int size;
+
+    void setPlayers(List<PlayerHighlight> source)
+    {
+        size = source.size();
+        names = new String[Math.max(16, size)];
+        players = new PlayerHighlight[names.length];
+
+        final Entry[] entries = new Entry[size];
+        for (int i = 0; i < size; i++)
+        {
+            final PlayerHighlight player = source.get(i);
+            entries[i] = new Entry(HighlightRegistry.canonicalName(player.getName()), player);
+        }
+        Arrays.sort(entries, Comparator.comparing(entry -> entry.name));
+
+        for (int i = 0; i < size; i++)
+        {
+            names[i] = entries[i].name;
+            players[i] = entries[i].player;
+        }
+    }
+
+    void add(PlayerHighlight player)
+    {
+        final String name = HighlightRegistry.canonicalName(player.getName());
+        final int index = lowerBound(name, 0, size);
+        if (size == names.length)
+        {
+            names = Arrays.copyOf(names, size * 2);
+            players = Arrays.copyOf(players, size * 2);
+        }
+        System.arraycopy(names, index, names, index + 1, size - index);
+        System.arraycopy(players, index, players, index + 1, size - index);
+        names[index] = name;
+        players[index] = player;
+        size++;
+    }
+
+    void remove(PlayerHighlight player)
+    {
+        final int i = indexOf(player);
+        if (i != -1)
+        {
+            System.arraycopy(names, i + 1, names, i, size - i - 1);
+            System.arraycopy(players, i + 1, players, i, size - i - 1);
+            size--;
+            names[size] = null;
+            players[size] = null;
+        }
+    }
+
+    /**
+     * Swaps a player for its edited copy, which keeps the same name and so the same position.
+     */
+    void replace(PlayerHighlight previous, PlayerHighlight player)
+    {
+        final int i = indexOf(previous);
+        if (i != -1)
+        {
+            players[i] = player;
+        }
+    }
+
+    private int indexOf(PlayerHighlight player)
+    {
+        final String name = HighlightRegistry.canonicalName(player.getName());
+        for (int i = lowerBound(name, 0, size); i < size && names[i].equals(name); i++)
+        {
+            if (players[i] == player)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    PlayerHighlight get(int index)
+    {
+        return players[index];
+    }
+
+    /**
+     * @return the first index in {@code [from, to)} whose name is not less than the prefix
+     */
+    int lowerBound(String prefix, int from, int to)
+    {
+        int low = from;
+        int high = to;
+        while (low < high)
+        {
+            final int mid = (low + high) >>> 1;
+            if (names[mid].compareTo(prefix) < 0)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the first index in {@code [from, to)} past the names starting with the prefix,
+     * {@code from} must already be the prefix's lower bound
+     */
+    int upperBound(String prefix, int from, int to)
+    {
+        int low = from;
+        int high = to;
+        while (low < high)
+        {
+            final int mid = (low + high) >>> 1;
+            if (names[mid].startsWith(prefix))
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @AllArgsConstructor
+    private static class Entry
+    {
+        private final String name;
+        private final PlayerHighlight player;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020, PresNL
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.pmcolors.ui;
+
+import com.pmcolors.PMColorsPlugin;
+import net.runelite.client.util.ImageUtil;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Every variant of the row icons packed into one image, so painting a row never swaps or
+ * allocates icons, it only picks the cell to copy from.
+ */
+final class RowIcons
+{
+    static final int SIZE = 18;
+
+    private static final int COLOR = 0;
+    private static final int DELETE = 2;
+    private static final int MESSAGE = 4;
+    private static final int NAME = 8;
+    private static final int LOGINOUT = 12;
+    private static final int CELLS = 16;
+
+    private static final BufferedImage ATLAS = new BufferedImage(SIZE * CELLS, SIZE, BufferedImage.TYPE_INT_ARGB);
+
+    static
+    {
+        final Graphics2D graphics = ATLAS.createGraphics();
+
+        final BufferedImage highlightIcon = ImageUtil.getResourceStreamFromClass(PMColorsPlugin.class, "/highlight_color_icon.png");
+        draw(graphics, COLOR, highlightIcon);
+        draw(graphics, COLOR + 1, ImageUtil.luminanceOffset(highlightIcon, -150));
+
+        final BufferedImage deleteIcon = ImageUtil.getResourceStreamFromClass(PMColorsPlugin.class, "/delete_icon.png");
+        draw(graphics, DELETE, deleteIcon);
+        draw(graphics, DELETE + 1, ImageUtil.alphaOffset(deleteIcon, -100));
+
+        drawToggle(graphics, MESSAGE, ImageUtil.getResourceStreamFromClass(PMColorsPlugin.class, "/chat_icon.png"));
+        drawToggle(graphics, NAME, ImageUtil.getResourceStreamFromClass(PMColorsPlugin.class, "/name_icon.png"));
+        drawToggle(graphics, LOGINOUT, ImageUtil.getResourceStreamFromClass(PMColorsPlugin.class, "/loginout_icon.png"));
+
+        graphics.dispose();
+    }
+
+    private RowIcons()
+    {
+    }
+
+    /**
+     * Paints the icon of an action at the given position.
+     *
+     * @param enabled whether the toggle is on, ignored by the color and delete actions
+     */
+    static void paint(Graphics graphics, RowAction action, boolean enabled, boolean hovered, int x, int y)
+    {
+        final int cell = cell(action, enabled, hovered);
+        graphics.drawImage(ATLAS, x, y, x + SIZE, y + SIZE, cell * SIZE, 0, (cell + 1) * SIZE, SIZE, null);
+    }
+
+    private static int cell(RowAction action, boolean enabled, boolean hovered)
+    {
+        final int hover = hovered ? 1 : 0;
+        switch (action)
+        {
+            case COLOR:
+                return COLOR + hover;
+            case DELETE:
+                return DELETE + hover;
+            case MESSAGE:
+                return MESSAGE + (enabled ? 0 : 2) + hover;
+            case NAME:
+                return NAME + (enabled ? 0 : 2) + hover;
+            case LOGINOUT:
+                return LOGINOUT + (enabled ? 0 : 2) + hover;
+            default:
+                throw new IllegalArgumentException("No icon for " + action);
+        }
+    }
+
+    /**
+     * A toggle takes four cells: enabled, enabled and hovered, disabled, disabled and hovered.
+     */
+    private static void drawToggle(Graphics graphics, int cell, BufferedImage icon)
+    {
+        final BufferedImage dimmed = ImageUtil.luminanceOffset(icon, -150);
+        draw(graphics, cell, icon);
+        draw(graphics, cell + 1, dimmed);
+        draw(graphics, cell + 2, dimmed);
+        draw(graphics, cell + 3, ImageUtil.alphaOffset(dimmed, -100));
+    }
+
+    private static void draw(Graphics graphics, int cell, BufferedImage image)
+    {
+        graphics.drawImage(image, cell * SIZE, 0, SIZE, SIZE, null);
+    }
+}
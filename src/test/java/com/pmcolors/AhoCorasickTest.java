@@ -0,0 +1,129 @@
+package com.pmcolors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AhoCorasickTest
+{
+	@Test
+	public void findsOverlappingAndNestedKeys()
+	{
+		final String[] keys = {"he", "she", "his", "hers"};
+		assertEquals(naive(keys, "ushers"), matches(keys, "ushers"));
+		assertEquals("[0@4, 1@4, 3@6]", matches(keys, "ushers").toString());
+	}
+
+	@Test
+	public void matchesANaiveSearch()
+	{
+		final Random random = new Random(7);
+		for (int round = 0; round < 200; round++)
+		{
+			final String[] keys = new String[1 + random.nextInt(6)];
+			for (int i = 0; i < keys.length; i++)
+			{
+				keys[i] = randomString(random, 1 + random.nextInt(4));
+			}
+			final String text = randomString(random, 40);
+			assertEquals(text, naive(keys, text), matches(keys, text));
+		}
+	}
+
+	@Test
+	public void duplicateKeysReportEveryValue()
+	{
+		final AhoCorasick automaton = new AhoCorasick();
+		automaton.add("ab", 1);
+		automaton.add("ab", 2);
+		automaton.build();
+
+		AhoCorasick.Node state = automaton.start();
+		state = automaton.next(state, 'a');
+		state = automaton.next(state, 'b');
+		assertEquals(2, state.values().length);
+	}
+
+	@Test
+	public void empty()
+	{
+		final AhoCorasick automaton = new AhoCorasick();
+		assertTrue(automaton.isEmpty());
+		automaton.build();
+		assertEquals(0, automaton.next(automaton.start(), 'a').values().length);
+
+		final AhoCorasick one = new AhoCorasick();
+		one.add("a", 0);
+		assertFalse(one.isEmpty());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void addAfterBuild()
+	{
+		final AhoCorasick automaton = new AhoCorasick();
+		automaton.build();
+		automaton.add("a", 0);
+	}
+
+	/**
+	 * Every match as "value@end", in the order they end, matches ending together sorted.
+	 */
+	private static List<String> matches(String[] keys, String text)
+	{
+		final AhoCorasick automaton = new AhoCorasick();
+		for (int i = 0; i < keys.length; i++)
+		{
+			automaton.add(keys[i], i);
+		}
+		automaton.build();
+
+		final List<String> found = new ArrayList<>();
+		AhoCorasick.Node state = automaton.start();
+		for (int i = 0; i < text.length(); i++)
+		{
+			state = automaton.next(state, text.charAt(i));
+			final List<String> here = new ArrayList<>();
+			for (int value : state.values())
+			{
+				here.add(value + "@" + (i + 1));
+			}
+			Collections.sort(here);
+			found.addAll(here);
+		}
+		return found;
+	}
+
+	private static List<String> naive(String[] keys, String text)
+	{
+		final List<String> found = new ArrayList<>();
+		for (int end = 1; end <= text.length(); end++)
+		{
+			final List<String> here = new ArrayList<>();
+			for (int i = 0; i < keys.length; i++)
+			{
+				if (text.startsWith(keys[i], end - keys[i].length()))
+				{
+					here.add(i + "@" + end);
+				}
+			}
+			Collections.sort(here);
+			found.addAll(here);
+		}
+		return found;
+	}
+
+	private static String randomString(Random random, int length)
+	{
+		final StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; i++)
+		{
+			builder.append((char) ('a' + random.nextInt(3)));
+		}
+		return builder.toString();
+	}
+}
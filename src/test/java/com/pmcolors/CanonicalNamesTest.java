@@ -0,0 +1,57 @@
+package com.pmcolors;
+
+import net.runelite.client.util.Text;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class CanonicalNamesTest
+{
+	private static final String[] NAMES = {
+		"Zezima",
+		"Lynx Titan",
+		"lynx_titan",
+		"Lynx-Titan",
+		"Lynx Titan",
+		"  padded name  ",
+		"<img=2>Iron Man",
+		"<col=ff0000>Red</col> Name",
+		"Café Owner",
+		"  ",
+		"",
+		"<unclosed",
+	};
+
+	@Test
+	public void bufferMatchesString()
+	{
+		final char[] buffer = new char[CanonicalNames.BUFFER_LENGTH];
+		for (String name : NAMES)
+		{
+			final int length = CanonicalNames.canonicalize(name, 0, name.length(), buffer);
+			assertEquals(name, expected(name), new String(buffer, 0, length));
+			assertEquals(name, expected(name), CanonicalNames.canonicalize(name));
+		}
+	}
+
+	@Test
+	public void bufferCanonicalizesASubstring()
+	{
+		final char[] buffer = new char[CanonicalNames.BUFFER_LENGTH];
+		final String message = "<img=2>Lynx_Titan has logged in.";
+		final int length = CanonicalNames.canonicalize(message, 0, message.indexOf(" has"), buffer);
+		assertEquals("lynx titan", new String(buffer, 0, length));
+	}
+
+	@Test
+	public void tooLongForTheBuffer()
+	{
+		final char[] buffer = new char[4];
+		assertEquals(-1, CanonicalNames.canonicalize("abcdef", 0, 6, buffer));
+		assertEquals(4, CanonicalNames.canonicalize("abcd  ", 0, 4, buffer));
+	}
+
+	private static String expected(String name)
+	{
+		return Text.toJagexName(Text.removeTags(name)).toLowerCase();
+	}
+}
@@ -0,0 +1,66 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import net.runelite.api.ChatMessageType;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChatHistoryTest
+{
+	private final HighlightRegistry registry = new HighlightRegistry();
+	private final ChatHistory history = new ChatHistory();
+	private final int[] matches = new int[KeywordHighlighter.MAX_MATCHES * 3];
+
+	@Before
+	public void setUp()
+	{
+		registry.add(new PlayerHighlight("Zezima", Color.RED, true, true, true));
+	}
+
+	@Test
+	public void senderOfTheEvictedLineKeepsItsNewLine()
+	{
+		add("Zezima", "first");
+		for (int i = 1; i < ChatHistory.MAX_LINES; i++)
+		{
+			add("Stranger " + i, "hello");
+		}
+		// evicts the first line, the only one Zezima had left
+		final StubMessageNode last = add("Zezima", "second");
+		history.update(registry.getSnapshot(), null, KeywordHighlighter.EMPTY, matches);
+
+		registry.update(new PlayerHighlight("Zezima", Color.BLUE, true, true, true));
+		assertTrue(history.update(registry.getSnapshot(), null, KeywordHighlighter.EMPTY, matches));
+		assertEquals(highlight("second"), last.value);
+
+		assertTrue(history.restore(matches));
+		assertEquals("second", last.value);
+	}
+
+	@Test
+	public void restoreSkipsLinesEditedSince()
+	{
+		final StubMessageNode node = add("Zezima", "hi");
+		node.value = "edited";
+
+		history.restore(matches);
+		assertEquals("edited", node.value);
+	}
+
+	private StubMessageNode add(String name, String original)
+	{
+		final StubMessageNode node = new StubMessageNode(0, ChatMessageType.PRIVATECHAT, name, null);
+		final HighlightStyle style = ChatHistory.messageStyle(registry.getSnapshot(), null, name);
+		node.value = ColorTagRewriter.highlight(original, style, KeywordHighlighter.EMPTY, matches);
+		history.add(name, node.getNode(), original, style);
+		return node;
+	}
+
+	private String highlight(String original)
+	{
+		return ColorTagRewriter.highlight(original, ChatHistory.messageStyle(registry.getSnapshot(), null, "Zezima"),
+			KeywordHighlighter.EMPTY, matches);
+	}
+}
@@ -0,0 +1,208 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.ScriptCallbackEvent;
+
+/**
+ * Feeds a {@link ChatRecording} through the plugin's chat handlers as fast as they go, without a
+ * game client, and reports the throughput, the latency of each event and the allocation rate.
+ * Can also write a synthetic recording of a busy world's private message storm.
+ *
+ * <pre>
+ * ChatReplayer recording.pmcr.gz [--players n] [--highlights file.csv] [--repeat n] [--warmup n]
+ * ChatReplayer --synthesize recording.pmcr.gz events [--players n] [--hit percent]
+ * </pre>
+ */
+public class ChatReplayer
+{
+	private static final String MESSAGE = "hey, are you coming to the raid tonight? bring your own supplies";
+
+	/**
+	 * A recorded event ready to be handed to the plugin again and again.
+	 */
+	private interface Event
+	{
+		void replay(PMColorsPlugin plugin, StubClient client);
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length == 0)
+		{
+			System.err.println("usage: ChatReplayer recording [--players n] [--highlights file] [--repeat n] [--warmup n]");
+			System.err.println("       ChatReplayer --synthesize recording events [--players n] [--hit percent]");
+			System.exit(1);
+		}
+
+		if (args[0].equals("--synthesize"))
+		{
+			synthesize(new File(args[1]), Integer.parseInt(args[2]), intOption(args, "--players", 1000),
+				intOption(args, "--hit", 50));
+			return;
+		}
+
+		try (PluginHarness harness = new PluginHarness())
+		{
+			harness.highlight(intOption(args, "--players", 1000));
+			final String highlights = option(args, "--highlights");
+			if (highlights != null)
+			{
+				addHighlights(harness.getPlugin(), new File(highlights));
+			}
+
+			final List<Event> events = load(new File(args[0]));
+			replay(harness, events, intOption(args, "--warmup", 1), intOption(args, "--repeat", 5));
+		}
+	}
+
+	private static List<Event> load(File file) throws IOException
+	{
+		final List<Event> events = new ArrayList<>();
+		ChatRecording.read(file, new ChatRecording.Visitor()
+		{
+			@Override
+			public void chatMessage(long nanos, ChatMessageType type, String name, String sender, String message)
+			{
+				final StubMessageNode node = new StubMessageNode(events.size(), type, name, message);
+				final ChatMessage chatMessage = new ChatMessage(node.getNode(), type, name, message,
+					sender.isEmpty() ? null : sender, 0);
+				events.add((plugin, client) ->
+				{
+					node.value = message;
+					plugin.onChatMessage(chatMessage);
+				});
+			}
+
+			@Override
+			public void scriptCallback(long nanos, String eventName, String[] stack, int stackSize)
+			{
+				final String[] recorded = Arrays.copyOf(stack, stackSize);
+				final String[] working = new String[stackSize];
+				final ScriptCallbackEvent event = new ScriptCallbackEvent();
+				event.setEventName(eventName);
+				events.add((plugin, client) ->
+				{
+					System.arraycopy(recorded, 0, working, 0, stackSize);
+					client.stringStack = working;
+					client.stringStackSize = stackSize;
+					plugin.onScriptCallbackEvent(event);
+				});
+			}
+		});
+		return events;
+	}
+
+	private static void replay(PluginHarness harness, List<Event> events, int warmup, int repeat)
+	{
+		final PMColorsPlugin plugin = harness.getPlugin();
+		final StubClient client = harness.getStubClient();
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long thread = Thread.currentThread().getId();
+
+		for (int i = 0; i < warmup; i++)
+		{
+			for (Event event : events)
+			{
+				event.replay(plugin, client);
+			}
+		}
+
+		final long[] latencies = new long[events.size() * repeat];
+		int n = 0;
+		final long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		final long start = System.nanoTime();
+		for (int i = 0; i < repeat; i++)
+		{
+			for (Event event : events)
+			{
+				final long eventStart = System.nanoTime();
+				event.replay(plugin, client);
+				latencies[n++] = System.nanoTime() - eventStart;
+			}
+		}
+		final long elapsed = System.nanoTime() - start;
+		final long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+		Arrays.sort(latencies);
+		final double seconds = elapsed / 1e9;
+		System.out.printf("%d events (%d x %d) in %.3f s, %.0f events/s%n", n, events.size(), repeat, seconds, n / seconds);
+		System.out.printf("latency ns: p50 %d, p90 %d, p99 %d, p99.9 %d, max %d%n", percentile(latencies, 50),
+			percentile(latencies, 90), percentile(latencies, 99), percentile(latencies, 99.9), latencies[n - 1]);
+		System.out.printf("allocated %.1f bytes/event, %.1f MB/s%n", (double) allocated / n, allocated / seconds / (1 << 20));
+	}
+
+	private static long percentile(long[] sorted, double percentile)
+	{
+		final int index = (int) Math.ceil(sorted.length * percentile / 100) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+
+	/**
+	 * Writes a private message storm: every message is followed by the script callback that
+	 * draws its line, and every tenth sender also logs in or out.
+	 */
+	private static void synthesize(File file, int events, int players, int hitPercent) throws IOException
+	{
+		final String[] senders = PluginHarness.senders(events, players, hitPercent, 42);
+		final Random random = new Random(42);
+		try (ChatRecording.Writer writer = new ChatRecording.Writer(file))
+		{
+			for (String sender : senders)
+			{
+				final boolean outgoing = random.nextInt(4) == 0;
+				writer.chatMessage(outgoing ? ChatMessageType.PRIVATECHATOUT : ChatMessageType.PRIVATECHAT, sender, null,
+					MESSAGE);
+
+				final String toFrom = outgoing ? "To" : "From";
+				writer.scriptCallback(outgoing ? "privateChatTo" : "privateChatFrom",
+					new String[]{"", "", sender, toFrom, sender, ":"}, 6);
+
+				if (random.nextInt(10) == 0)
+				{
+					writer.chatMessage(ChatMessageType.LOGINLOGOUTNOTIFICATION, "", null,
+						sender + (random.nextBoolean() ? " has logged in." : " has logged out."));
+				}
+			}
+			System.out.printf("wrote %d events to %s%n", writer.getEvents(), file);
+		}
+	}
+
+	private static void addHighlights(PMColorsPlugin plugin, File file) throws IOException
+	{
+		try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			HighlightExchange.read(in, HighlightExchange.Format.of(file), row -> plugin.getRegistry().add(
+				new PlayerHighlight(row.getName(), row.getColor() != null ? row.getColor() : Color.ORANGE, true, true, true)));
+		}
+	}
+
+	private static String option(String[] args, String name)
+	{
+		for (int i = 0; i < args.length - 1; i++)
+		{
+			if (args[i].equals(name))
+			{
+				return args[i + 1];
+			}
+		}
+		return null;
+	}
+
+	private static int intOption(String[] args, String name, int defaultValue)
+	{
+		final String value = option(args, name);
+		return value != null ? Integer.parseInt(value) : defaultValue;
+	}
+}
@@ -0,0 +1,69 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import net.runelite.api.ChatMessageType;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ColorPreviewTest
+{
+	private final HighlightRegistry registry = new HighlightRegistry();
+	private final ChatHistory history = new ChatHistory();
+	private final int[] matches = new int[KeywordHighlighter.MAX_MATCHES * 3];
+	private final StubMessageNode node = new StubMessageNode(0, ChatMessageType.PRIVATECHAT, "Zezima", "hi");
+	private ColorPreview preview;
+	private int commits;
+
+	@Before
+	public void setUp()
+	{
+		registry.add(new PlayerHighlight("Zezima", Color.RED, true, true, true));
+		preview = new ColorPreview(snapshot -> snapshot.find("Zezima").getStyle(), c ->
+		{
+			commits++;
+			registry.update(registry.find("Zezima").withColor(c));
+		});
+
+		final HighlightStyle style = ChatHistory.messageStyle(registry.getSnapshot(), null, "Zezima");
+		node.value = ColorTagRewriter.highlight("hi", style, KeywordHighlighter.EMPTY, matches);
+		history.add("Zezima", node.getNode(), "hi", style);
+		history.update(registry.getSnapshot(), null, KeywordHighlighter.EMPTY, matches);
+	}
+
+	@Test
+	public void previewLeavesTheRegistryAlone()
+	{
+		final long version = registry.getSnapshot().getVersion();
+		for (Color color : new Color[]{Color.GREEN, Color.YELLOW, Color.BLUE})
+		{
+			preview.colorChanged(color);
+			assertTrue(preview.apply(registry.getSnapshot()));
+			assertTrue(history.update(registry.getSnapshot(), preview, KeywordHighlighter.EMPTY, matches));
+		}
+		assertFalse(preview.apply(registry.getSnapshot()));
+		assertEquals(version, registry.getSnapshot().getVersion());
+		assertEquals(ColorTagRewriter.highlight("hi", preview.getShown(), KeywordHighlighter.EMPTY, matches), node.value);
+
+		preview.commit(null);
+		preview.commit(null);
+		assertEquals(1, commits);
+		assertEquals(Color.BLUE, registry.find("Zezima").getColor());
+		assertFalse(history.update(registry.getSnapshot(), null, KeywordHighlighter.EMPTY, matches));
+	}
+
+	@Test
+	public void closingWithTheOldColorPutsItBack()
+	{
+		final String before = node.value;
+		preview.colorChanged(Color.GREEN);
+		preview.apply(registry.getSnapshot());
+		history.update(registry.getSnapshot(), preview, KeywordHighlighter.EMPTY, matches);
+
+		preview.commit(Color.RED);
+		assertTrue(history.update(registry.getSnapshot(), null, KeywordHighlighter.EMPTY, matches));
+		assertEquals(before, node.value);
+	}
+}
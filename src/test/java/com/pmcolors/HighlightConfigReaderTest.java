@@ -0,0 +1,130 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HighlightConfigReaderTest
+{
+	@Test
+	public void readsGsonAndHexColors() throws IOException
+	{
+		final List<PlayerHighlight> players = new ArrayList<>();
+		final HighlightConfigReader.LoadResult result = HighlightConfigReader.readPlayers(new StringReader("["
+			+ "{\"name\":\"Zezima\",\"color\":{\"value\":-65536},\"highlightUsername\":true,\"highlightMessage\":false,\"highlightLoggedInOut\":true},"
+			+ "{\"name\":\"Lynx Titan\",\"color\":\"#00ff00\",\"highlightMessage\":true,\"somethingNew\":[1,2]}"
+			+ "]"), players::add);
+
+		assertEquals(2, result.getLoaded());
+		assertEquals(0, result.getDropped());
+
+		final PlayerHighlight zezima = players.get(0);
+		assertEquals("Zezima", zezima.getName());
+		assertEquals(Color.RED, zezima.getColor());
+		assertTrue(zezima.isHighlightUsername());
+		assertFalse(zezima.isHighlightMessage());
+		assertTrue(zezima.isHighlightLoggedInOut());
+
+		assertEquals(Color.GREEN, players.get(1).getColor());
+		assertTrue(players.get(1).isHighlightMessage());
+	}
+
+	@Test
+	public void skipsMalformedEntries() throws IOException
+	{
+		final List<PlayerHighlight> players = new ArrayList<>();
+		final HighlightConfigReader.LoadResult result = HighlightConfigReader.readPlayers(new StringReader("["
+			+ "{\"name\":\"No Color\"},"
+			+ "{\"color\":\"#ff0000\"},"
+			+ "{\"name\":\"  \",\"color\":\"#ff0000\"},"
+			+ "{\"name\":\"Bad Flag\",\"color\":\"#ff0000\",\"highlightMessage\":\"yes\"},"
+			+ "{\"name\":\"Bad Color\",\"color\":true},"
+			+ "\"just a string\","
+			+ "{\"name\":\"Member\",\"groupId\":3},"
+			+ "{\"name\":\"Good\",\"color\":\"#0000ff\"}"
+			+ "]"), players::add);
+
+		assertEquals(2, result.getLoaded());
+		assertEquals(6, result.getDropped());
+		assertEquals("Member", players.get(0).getName());
+		assertEquals(3, players.get(0).getGroupId());
+		assertEquals("Good", players.get(1).getName());
+	}
+
+	@Test
+	public void countsDuplicatesRejectedByTheSink() throws IOException
+	{
+		final HighlightRegistry registry = new HighlightRegistry();
+		final HighlightConfigReader.LoadResult result = HighlightConfigReader.readPlayers(new StringReader("["
+			+ "{\"name\":\"Zezima\",\"color\":\"#ff0000\"},"
+			+ "{\"name\":\"zezima\",\"color\":\"#00ff00\"}"
+			+ "]"), registry::add);
+
+		assertEquals(1, result.getLoaded());
+		assertEquals(1, result.getDropped());
+		assertEquals(Color.RED, registry.find("Zezima").getColor());
+	}
+
+	@Test
+	public void notAnArray() throws IOException
+	{
+		final HighlightConfigReader.LoadResult result = HighlightConfigReader.readPlayers(new StringReader("{\"name\":\"Zezima\"}"), p -> true);
+		assertEquals(0, result.getLoaded());
+		assertEquals(1, result.getDropped());
+	}
+
+	@Test
+	public void readsGroups() throws IOException
+	{
+		final List<HighlightGroup> groups = new ArrayList<>();
+		final HighlightConfigReader.LoadResult result = HighlightConfigReader.readGroups(new StringReader("["
+			+ "{\"id\":1,\"name\":\"Clan\",\"color\":\"#ff0000\",\"highlightUsername\":true},"
+			+ "{\"id\":0,\"name\":\"No Id\",\"color\":\"#ff0000\"},"
+			+ "{\"id\":2,\"name\":\"No Color\"}"
+			+ "]"), groups::add);
+
+		assertEquals(1, result.getLoaded());
+		assertEquals(2, result.getDropped());
+		assertEquals("Clan", groups.get(0).getName());
+		assertTrue(groups.get(0).isHighlightUsername());
+	}
+
+	@Test
+	public void readPlayerReturnsNullWhenInvalid() throws IOException
+	{
+		assertNull(HighlightConfigReader.readPlayer("{\"name\":\"Zezima\"}"));
+		assertNull(HighlightConfigReader.readPlayer("[]"));
+		assertEquals("Zezima", HighlightConfigReader.readPlayer("{\"name\":\"Zezima\",\"color\":\"#ff0000\"}").getName());
+	}
+
+	@Test
+	public void truncatedLegacyConfigFails()
+	{
+		final List<PlayerHighlight> players = new ArrayList<>();
+		try
+		{
+			PMColorsPlugin.loadLegacyConfig("[{\"name\":\"Zezima\",\"color\":\"#ff0000\"},{\"name\":\"Lynx", players::add);
+			fail("a truncated array must not read as complete");
+		}
+		catch (IOException ex)
+		{
+			// the players before the error were still handed over
+			assertEquals(1, players.size());
+		}
+	}
+
+	@Test
+	public void emptyLegacyConfig() throws IOException
+	{
+		assertEquals(0, PMColorsPlugin.loadLegacyConfig(null, p -> true).getLoaded());
+		assertEquals(0, PMColorsPlugin.loadLegacyConfig("", p -> true).getLoaded());
+	}
+}
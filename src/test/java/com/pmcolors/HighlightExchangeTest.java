@@ -0,0 +1,104 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HighlightExchangeTest
+{
+	@Test
+	public void csvWithoutHeader() throws IOException
+	{
+		final List<HighlightExchange.Row> rows = new ArrayList<>();
+		final HighlightConfigReader.LoadResult result = read("Zezima\n\nLynx Titan,#ff0000\n", HighlightExchange.Format.CSV, rows);
+
+		assertEquals(2, result.getLoaded());
+		assertEquals(new HighlightExchange.Row("Zezima", null, null, null, null, null), rows.get(0));
+		assertEquals(new HighlightExchange.Row("Lynx Titan", Color.RED, null, null, null, null), rows.get(1));
+	}
+
+	@Test
+	public void csvWithHeaderAndEveryField() throws IOException
+	{
+		final List<HighlightExchange.Row> rows = new ArrayList<>();
+		read("name,color,highlightUsername,highlightMessage,highlightLoggedInOut,group\n"
+			+ "Zezima, #00ff00 ,TRUE,false,,Clan\n", HighlightExchange.Format.CSV, rows);
+
+		assertEquals(1, rows.size());
+		assertEquals(new HighlightExchange.Row("Zezima", Color.GREEN, true, false, null, "Clan"), rows.get(0));
+	}
+
+	@Test
+	public void csvQuoting() throws IOException
+	{
+		final List<HighlightExchange.Row> rows = new ArrayList<>();
+		read("\"Zezima\",,,,,\"Clan, \"\"the best\"\"\"\n"
+			+ "\"comma, name\",#ff0000\n"
+			+ "a\"b\",#ff0000\n", HighlightExchange.Format.CSV, rows);
+
+		assertEquals("Clan, \"the best\"", rows.get(0).getGroup());
+		assertEquals("comma, name", rows.get(1).getName());
+		assertEquals("ab", rows.get(2).getName());
+	}
+
+	@Test
+	public void csvDropsMalformedRows() throws IOException
+	{
+		final List<HighlightExchange.Row> rows = new ArrayList<>();
+		final HighlightConfigReader.LoadResult result = read(",#ff0000\nBad Color,red\nBad Flag,,maybe\nGood\n",
+			HighlightExchange.Format.CSV, rows);
+
+		assertEquals(1, result.getLoaded());
+		assertEquals(3, result.getDropped());
+		assertEquals("Good", rows.get(0).getName());
+	}
+
+	@Test
+	public void json() throws IOException
+	{
+		final List<HighlightExchange.Row> rows = new ArrayList<>();
+		final HighlightConfigReader.LoadResult result = read("[{\"name\":\"Zezima\",\"color\":\"#ff0000\",\"highlightMessage\":true,\"group\":\"Clan\"},"
+			+ "{\"color\":\"#ff0000\"},{\"name\":\"Lynx Titan\"}]", HighlightExchange.Format.JSON, rows);
+
+		assertEquals(2, result.getLoaded());
+		assertEquals(1, result.getDropped());
+		assertEquals(new HighlightExchange.Row("Zezima", Color.RED, null, true, null, "Clan"), rows.get(0));
+		assertNull(rows.get(1).getColor());
+	}
+
+	@Test
+	public void roundTrip() throws IOException
+	{
+		final HighlightRegistry registry = new HighlightRegistry();
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			transaction.putGroup(new HighlightGroup(1, "Clan, \"A\"", Color.BLUE, true, false, true));
+			transaction.add(new PlayerHighlight("Zezima", Color.RED, true, true, false));
+			transaction.add(PlayerHighlight.member("Lynx Titan", 1));
+		}
+
+		for (HighlightExchange.Format format : HighlightExchange.Format.values())
+		{
+			final StringWriter out = new StringWriter();
+			HighlightExchange.write(out, registry.getSnapshot(), format);
+
+			final List<HighlightExchange.Row> rows = new ArrayList<>();
+			read(out.toString(), format, rows);
+
+			assertEquals(format.name(), 2, rows.size());
+			assertEquals(format.name(), new HighlightExchange.Row("Zezima", Color.RED, true, true, false, null), rows.get(0));
+			assertEquals(format.name(), new HighlightExchange.Row("Lynx Titan", Color.BLUE, true, false, true, "Clan, \"A\""), rows.get(1));
+		}
+	}
+
+	private static HighlightConfigReader.LoadResult read(String text, HighlightExchange.Format format, List<HighlightExchange.Row> rows) throws IOException
+	{
+		return HighlightExchange.read(new StringReader(text), format, rows::add);
+	}
+}
@@ -0,0 +1,122 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class HighlightRegistryTest
+{
+	@Test
+	public void removeGroupReleasesEveryMemberWithTheGroupStyle()
+	{
+		final HighlightRegistry registry = new HighlightRegistry();
+		final HighlightGroup group = new HighlightGroup(1, "Clan", Color.RED, true, false, true);
+		final PlayerHighlight outsider = new PlayerHighlight("Outsider", Color.BLUE, true, true, true);
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			transaction.putGroup(group);
+			transaction.add(PlayerHighlight.member("First", 1));
+			transaction.add(outsider);
+			transaction.add(PlayerHighlight.member("Second", 1));
+		}
+
+		final List<Integer> changed = new ArrayList<>();
+		registry.addListener(new ListenerAdapter()
+		{
+			@Override
+			public void playerChanged(int index, PlayerHighlight player)
+			{
+				changed.add(index);
+				assertSame(player, registry.getPlayers().get(index));
+			}
+		});
+
+		final List<PlayerHighlight> released;
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			released = transaction.removeGroup(1);
+		}
+
+		assertEquals(2, released.size());
+		assertEquals(2, changed.size());
+		assertEquals(0, (int) changed.get(0));
+		assertEquals(2, (int) changed.get(1));
+
+		final HighlightSnapshot snapshot = registry.getSnapshot();
+		assertNull(snapshot.getGroup(1));
+		assertSame(outsider, snapshot.find("outsider"));
+		for (String name : new String[]{"First", "Second"})
+		{
+			final PlayerHighlight player = snapshot.find(name);
+			assertSame(player, snapshot.getPlayers().get(snapshot.getPlayers().indexOf(player)));
+			assertFalse(player.isGrouped());
+			assertEquals(Color.RED, player.getColor());
+			assertEquals(Color.RED, snapshot.findStyle(name).getColor());
+			assertFalse(snapshot.findStyle(name).isHighlightMessage());
+		}
+	}
+
+	@Test
+	public void removeUnknownGroup()
+	{
+		final HighlightRegistry registry = new HighlightRegistry();
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			assertEquals(0, transaction.removeGroup(7).size());
+		}
+		assertEquals(0, registry.getSnapshot().getVersion());
+	}
+
+	@Test
+	public void largeGroupIds()
+	{
+		final HighlightRegistry registry = new HighlightRegistry();
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			transaction.putGroup(new HighlightGroup(Integer.MAX_VALUE, "Imported", Color.RED, true, true, true));
+			transaction.putGroup(new HighlightGroup(2, "Clan", Color.BLUE, true, true, true));
+			transaction.add(PlayerHighlight.member("Zezima", Integer.MAX_VALUE));
+			assertEquals(1, transaction.nextGroupId());
+		}
+
+		final HighlightSnapshot snapshot = registry.getSnapshot();
+		assertEquals("Imported", snapshot.getGroup(Integer.MAX_VALUE).getName());
+		assertEquals("Clan", snapshot.getGroup(2).getName());
+		assertNull(snapshot.getGroup(1));
+		assertNull(snapshot.getGroup(-1));
+		assertEquals(Color.RED, snapshot.findStyle("Zezima").getColor());
+	}
+
+	private static class ListenerAdapter implements HighlightListener
+	{
+		@Override
+		public void playerAdded(int index, PlayerHighlight player)
+		{
+		}
+
+		@Override
+		public void playerRemoved(int index, PlayerHighlight player)
+		{
+		}
+
+		@Override
+		public void playerChanged(int index, PlayerHighlight player)
+		{
+		}
+
+		@Override
+		public void playersReset(List<PlayerHighlight> players)
+		{
+		}
+
+		@Override
+		public void groupsChanged(List<HighlightGroup> groups)
+		{
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ImportHighlightsTest
+{
+	private PluginHarness harness;
+	private PMColorsPlugin plugin;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		harness = new PluginHarness();
+		plugin = harness.getPlugin();
+		plugin.startUp();
+		plugin.finishCreation(false, "Keep Me", Color.BLUE);
+	}
+
+	@After
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	@Test
+	public void replaceSavesEveryChange() throws Exception
+	{
+		final HighlightExchange.Result result = plugin.importHighlights(file(".csv",
+			"Zezima,#ff0000\nLynx Titan,,,,,Clan\nzezima\n"), true);
+
+		assertEquals(2, result.getAdded());
+		assertEquals(1, result.getRemoved());
+		assertEquals(1, result.getDropped());
+		assertNull(plugin.getRegistry().find("Keep Me"));
+
+		plugin.shutDown();
+		assertNotNull(harness.getConfiguration().get("pmcolors.player.zezima"));
+		assertNotNull(harness.getConfiguration().get("pmcolors.player.lynx_titan"));
+		assertFalse(harness.getConfiguration().containsKey("pmcolors.player.keep_me"));
+		assertTrue(harness.getConfiguration().get("pmcolors.groups").contains("Clan"));
+	}
+
+	@Test
+	public void failedReadChangesNothing() throws Exception
+	{
+		final HighlightSnapshot before = plugin.getRegistry().getSnapshot();
+		try
+		{
+			plugin.importHighlights(file(".json", "[{\"name\":\"Zezima\",\"color\":\"#ff0000\"},{\"name\":"), true);
+			fail("a truncated file must not import");
+		}
+		catch (IOException ex)
+		{
+			// expected
+		}
+
+		assertEquals(before.getVersion(), plugin.getRegistry().getSnapshot().getVersion());
+		assertNull(plugin.getRegistry().find("Zezima"));
+		assertNotNull(plugin.getRegistry().find("Keep Me"));
+		plugin.shutDown();
+	}
+
+	private static File file(String extension, String content) throws IOException
+	{
+		final File file = File.createTempFile("pmcolors-import", extension);
+		file.deleteOnExit();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
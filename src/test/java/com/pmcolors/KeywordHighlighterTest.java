@@ -0,0 +1,140 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KeywordHighlighterTest
+{
+	private final int[] matches = new int[KeywordHighlighter.MAX_MATCHES * 3];
+
+	@Test
+	public void parsesColors()
+	{
+		final KeywordHighlighter keywords = KeywordHighlighter.parse("raid\nBoss = #ff0000\n  \nx = y = #00ff00", Color.CYAN);
+
+		assertEquals("[raid, boss]", find(keywords, "raid boss").toString());
+		assertEquals(Color.CYAN, keywords.getStyle(0).getColor());
+		assertEquals(Color.RED, keywords.getStyle(1).getColor());
+		assertEquals(Color.GREEN, keywords.getStyle(2).getColor());
+		assertEquals("[x = y]", find(keywords, "so x = y ok").toString());
+	}
+
+	@Test
+	public void matchesWholeWordsIgnoringCase()
+	{
+		final KeywordHighlighter keywords = KeywordHighlighter.parse("raid", Color.CYAN);
+
+		assertEquals("[Raid]", find(keywords, "Raid tonight?").toString());
+		assertEquals("[RAID]", find(keywords, "tob RAID!").toString());
+		assertEquals("[]", find(keywords, "raids tonight").toString());
+		assertEquals("[]", find(keywords, "abraid").toString());
+		assertEquals("[raid, raid]", find(keywords, "raid,raid").toString());
+	}
+
+	@Test
+	public void skipsTags()
+	{
+		final KeywordHighlighter keywords = KeywordHighlighter.parse("col\nraid", Color.CYAN);
+
+		assertEquals("[raid]", find(keywords, "<col=ff0000>raid</col>").toString());
+		assertEquals("[]", find(keywords, "ra<col=ff0000>id").toString());
+		assertEquals("[]", find(keywords, "<col>").toString());
+	}
+
+	@Test
+	public void matchesNonBreakingSpaces()
+	{
+		final KeywordHighlighter keywords = KeywordHighlighter.parse("raid night", Color.CYAN);
+		assertEquals("[raid\u00A0night]", find(keywords, "a raid\u00A0night").toString());
+	}
+
+	@Test
+	public void leftmostLongestWins()
+	{
+		final KeywordHighlighter keywords = KeywordHighlighter.parse("raid\nraid night\nnight owl", Color.CYAN);
+
+		final List<String> found = find(keywords, "raid night owl");
+		assertEquals("[raid night]", found.toString());
+		assertEquals(1, matches[2]);
+
+		assertEquals("[raid, night owl]", find(keywords, "raid. night owl").toString());
+	}
+
+	@Test
+	public void shorterKeywordMatchesWhenLongerIsNotAWord()
+	{
+		final KeywordHighlighter keywords = KeywordHighlighter.parse("s trade\ntrade", Color.CYAN);
+
+		assertEquals("[trade]", find(keywords, "is trade").toString());
+		assertEquals("[s trade]", find(keywords, "its s trade").toString());
+	}
+
+	@Test
+	public void ignoresDefaultLocale()
+	{
+		final Locale locale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try
+		{
+			final KeywordHighlighter keywords = KeywordHighlighter.parse("IRON", Color.CYAN);
+			assertEquals("[iron]", find(keywords, "buying iron").toString());
+		}
+		finally
+		{
+			Locale.setDefault(locale);
+		}
+	}
+
+	@Test
+	public void stopsAtMaxMatches()
+	{
+		final KeywordHighlighter keywords = KeywordHighlighter.parse("a", Color.CYAN);
+		final StringBuilder message = new StringBuilder();
+		for (int i = 0; i < KeywordHighlighter.MAX_MATCHES + 5; i++)
+		{
+			message.append("a ");
+		}
+
+		assertEquals(KeywordHighlighter.MAX_MATCHES, keywords.find(message.toString(), matches));
+		assertEquals(2, keywords.find(message.toString(), new int[6]));
+	}
+
+	@Test
+	public void empty()
+	{
+		assertTrue(KeywordHighlighter.parse(null, Color.CYAN).isEmpty());
+		assertTrue(KeywordHighlighter.parse("\n \n", Color.CYAN).isEmpty());
+		assertEquals(0, KeywordHighlighter.EMPTY.find("anything", matches));
+	}
+
+	@Test
+	public void highlightRestoresTheSendersColor()
+	{
+		final KeywordHighlighter keywords = KeywordHighlighter.parse("raid = #00ff00", Color.CYAN);
+		final HighlightStyle style = HighlightStyle.of(Color.RED, true, true, true);
+
+		assertEquals("<col=ff0000>come <col=00ff00>raid<col=ff0000> now</col>",
+			ColorTagRewriter.highlight("come raid now", style, keywords, matches));
+
+		final String plain = "nothing here";
+		assertSame(plain, ColorTagRewriter.highlight(plain, null, keywords, matches));
+		assertEquals("<col=ff0000>nothing here</col>", ColorTagRewriter.highlight(plain, style, keywords, matches));
+	}
+
+	private List<String> find(KeywordHighlighter keywords, String message)
+	{
+		final int count = keywords.find(message, matches);
+		final List<String> found = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+		{
+			found.add(message.substring(matches[i * 3], matches[i * 3 + 1]));
+		}
+		return found;
+	}
+}
@@ -0,0 +1,65 @@
+package com.pmcolors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class LegacyMigrationTest
+{
+	private static final String CORRUPT = "[{\"name\":\"Zezima\",\"color\":\"#ff0000\"},"
+		+ "{\"name\":\"Lynx Titan\",\"color\":\"#00ff00\"},{\"name\":";
+
+	private PluginHarness harness;
+	private PMColorsPlugin plugin;
+
+	@Before
+	public void setUp()
+	{
+		harness = new PluginHarness();
+		plugin = harness.getPlugin();
+	}
+
+	@After
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	@Test
+	public void corruptValueIsMigratedOnce() throws Exception
+	{
+		harness.getConfiguration().put("pmcolors.highlightedplayers", CORRUPT);
+
+		plugin.startUp();
+		drainExecutor();
+		assertNotNull(plugin.getRegistry().find("Zezima"));
+		assertNotNull(plugin.getRegistry().find("Lynx Titan"));
+
+		plugin.deleteHighlight(plugin.getRegistry().find("Zezima"));
+		plugin.shutDown();
+		drainExecutor();
+
+		assertFalse(harness.getConfiguration().containsKey("pmcolors.highlightedplayers"));
+		assertEquals(CORRUPT, harness.getConfiguration().get("pmcolors.highlightedplayersbackup"));
+		assertEquals("2", harness.getConfiguration().get("pmcolors.storageversion"));
+		assertNull(harness.getConfiguration().get("pmcolors.player.zezima"));
+		assertNotNull(harness.getConfiguration().get("pmcolors.player.lynx_titan"));
+
+		// the second start must not bring the deleted player back
+		plugin.startUp();
+		drainExecutor();
+		assertNull(plugin.getRegistry().find("Zezima"));
+		assertNotNull(plugin.getRegistry().find("Lynx Titan"));
+		assertEquals(CORRUPT, harness.getConfiguration().get("pmcolors.highlightedplayersbackup"));
+		plugin.shutDown();
+	}
+
+	private void drainExecutor() throws Exception
+	{
+		harness.getExecutor().submit(() -> null).get();
+	}
+}
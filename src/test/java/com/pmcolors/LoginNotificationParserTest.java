@@ -0,0 +1,65 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LoginNotificationParserTest
+{
+	private final LoginNotificationParser parser = new LoginNotificationParser();
+	private final HighlightRegistry registry = new HighlightRegistry();
+	private PlayerHighlight player;
+
+	@Before
+	public void setUp()
+	{
+		player = new PlayerHighlight("Lynx Titan", Color.RED, true, true, true);
+		registry.add(player);
+	}
+
+	@Test
+	public void nameEnd()
+	{
+		assertEquals(10, LoginNotificationParser.nameEnd("Lynx Titan has logged in."));
+		assertEquals(6, LoginNotificationParser.nameEnd("Zezima has logged out."));
+		assertEquals(-1, LoginNotificationParser.nameEnd("Zezima has logged"));
+		assertEquals(-1, LoginNotificationParser.nameEnd("Welcome to RuneScape."));
+		// the first occurrence is not followed by a state, the second is
+		assertEquals(23, LoginNotificationParser.nameEnd("A has logged  B has log has logged in"));
+	}
+
+	@Test
+	public void findsTheHighlightedPlayer()
+	{
+		final HighlightSnapshot snapshot = registry.getSnapshot();
+		assertSame(player.getStyle(), parser.findStyle(snapshot, "Lynx Titan has logged in."));
+		assertSame(player.getStyle(), parser.findStyle(snapshot, "lynx_titan has logged out."));
+		assertSame(player.getStyle(), parser.findStyle(snapshot, "<img=2>Lynx Titan has logged in."));
+	}
+
+	@Test
+	public void ignoresOtherMessages()
+	{
+		final HighlightSnapshot snapshot = registry.getSnapshot();
+		assertNull(parser.findStyle(snapshot, "Zezima has logged in."));
+		assertNull(parser.findStyle(snapshot, "Lynx Titan says hi"));
+		assertNull(parser.findStyle(snapshot, ""));
+	}
+
+	@Test
+	public void fallsBackForNamesLongerThanTheBuffer()
+	{
+		final StringBuilder name = new StringBuilder();
+		while (name.length() <= CanonicalNames.BUFFER_LENGTH)
+		{
+			name.append("Long Name ");
+		}
+		final PlayerHighlight longName = new PlayerHighlight(name.toString().trim(), Color.BLUE, true, true, true);
+		registry.add(longName);
+
+		assertSame(longName.getStyle(), parser.findStyle(registry.getSnapshot(), name + "has logged in."));
+	}
+}
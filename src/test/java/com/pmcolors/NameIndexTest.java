@@ -0,0 +1,163 @@
+package com.pmcolors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NameIndexTest
+{
+	// the capacity of a new index, keys are spread over it by the same hash as NameIndex.slot
+	private static final int MASK = 15;
+
+	@Test
+	public void getByCharsMatchesGetByString()
+	{
+		final NameIndex<String> index = new NameIndex<>();
+		index.put("zezima", "z");
+		index.put("lynx titan", "l");
+
+		assertEquals("z", index.get("zezima".toCharArray(), 6));
+		assertEquals("l", index.get("lynx titan".toCharArray(), 10));
+		assertNull(index.get("zezimaa".toCharArray(), 7));
+		assertNull(index.get("zezima".toCharArray(), 5));
+		assertNull(index.get((String) null));
+	}
+
+	@Test
+	public void putIfAbsentKeepsTheExistingValue()
+	{
+		final NameIndex<String> index = new NameIndex<>();
+		assertNull(index.putIfAbsent("a", "first"));
+		assertEquals("first", index.putIfAbsent("a", "second"));
+		assertEquals("first", index.get("a"));
+		assertEquals("first", index.put("a", "third"));
+		assertEquals("third", index.get("a"));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	public void removeOnlyRemovesTheSameValue()
+	{
+		final NameIndex<String> index = new NameIndex<>();
+		final String value = new String("v");
+		index.put("a", value);
+
+		assertFalse(index.remove("a", new String("v")));
+		assertFalse(index.remove("b", value));
+		assertTrue(index.remove("a", value));
+		assertNull(index.get("a"));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	public void deleteShiftsBackAcrossTheEndOfTheTable()
+	{
+		// three keys that all want the last slot wrap around to the first two
+		final List<String> last = keysWithSlot(MASK, 3);
+		final String first = keysWithSlot(0, 1).get(0);
+
+		final NameIndex<String> index = new NameIndex<>();
+		for (String key : last)
+		{
+			index.put(key, key);
+		}
+		index.put(first, first);
+
+		assertTrue(index.remove(last.get(0), last.get(0)));
+		assertNull(index.get(last.get(0)));
+		assertSame(last.get(1), index.get(last.get(1)));
+		assertSame(last.get(2), index.get(last.get(2)));
+		assertSame(first, index.get(first));
+
+		assertTrue(index.remove(last.get(1), last.get(1)));
+		assertSame(last.get(2), index.get(last.get(2)));
+		assertSame(first, index.get(first));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void deleteKeepsKeysThatAreAtHome()
+	{
+		final List<String> colliding = keysWithSlot(3, 2);
+		final String home = keysWithSlot(5, 1).get(0);
+
+		final NameIndex<String> index = new NameIndex<>();
+		index.put(colliding.get(0), "a");
+		index.put(colliding.get(1), "b");
+		index.put(home, "c");
+
+		assertTrue(index.remove(colliding.get(0), "a"));
+		assertEquals("b", index.get(colliding.get(1)));
+		assertEquals("c", index.get(home));
+	}
+
+	@Test
+	public void matchesAHashMapUnderRandomChanges()
+	{
+		final Random random = new Random(42);
+		final NameIndex<String> index = new NameIndex<>();
+		final Map<String, String> expected = new HashMap<>();
+
+		for (int i = 0; i < 20_000; i++)
+		{
+			final String key = "p" + random.nextInt(64);
+			if (random.nextInt(3) == 0)
+			{
+				final String value = expected.get(key);
+				assertEquals(value != null, value != null && index.remove(key, value));
+				expected.remove(key);
+			}
+			else
+			{
+				final String value = key + i;
+				assertEquals(expected.put(key, value), index.put(key, value));
+			}
+
+			assertEquals(expected.size(), index.size());
+		}
+
+		for (int i = 0; i < 64; i++)
+		{
+			final String key = "p" + i;
+			assertEquals(expected.get(key), index.get(key));
+			assertEquals(expected.get(key), index.get(key.toCharArray(), key.length()));
+		}
+	}
+
+	@Test
+	public void copyIsIndependent()
+	{
+		final NameIndex<String> index = new NameIndex<>();
+		index.put("a", "a");
+		final NameIndex<String> copy = index.copy();
+		copy.put("b", "b");
+		index.clear();
+
+		assertNull(index.get("a"));
+		assertEquals("a", copy.get("a"));
+		assertEquals("b", copy.get("b"));
+	}
+
+	private static List<String> keysWithSlot(int slot, int count)
+	{
+		final List<String> keys = new ArrayList<>();
+		for (int i = 0; keys.size() < count; i++)
+		{
+			final String key = "k" + i;
+			final int hash = key.hashCode();
+			if (((hash ^ (hash >>> 16)) & MASK) == slot)
+			{
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+}
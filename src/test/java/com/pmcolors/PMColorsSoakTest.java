@@ -0,0 +1,228 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.management.ObjectName;
+import javax.swing.SwingUtilities;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.ScriptCallbackEvent;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs the plugin through thousands of start/stop cycles and millions of private messages, and
+ * checks that the retained heap, the thread count and the registry listeners stay flat. Only runs
+ * with -Dpmcolors.soak=true, see the soakTest task; the sizes can be set with
+ * -Dpmcolors.soak.cycles and -Dpmcolors.soak.messages.
+ */
+public class PMColorsSoakTest
+{
+	private static final int CYCLES = Integer.getInteger("pmcolors.soak.cycles", 2_000);
+	private static final int MESSAGES = Integer.getInteger("pmcolors.soak.messages", 2_000_000);
+
+	private static final int WARMUP_CYCLES = 50;
+	private static final long MAX_HEAP_GROWTH = 4 << 20;
+	private static final int MAX_THREAD_GROWTH = 2;
+	private static final int HISTOGRAM_LINES = 20;
+
+	private static final String MESSAGE = "hey, are you coming to the raid tonight?";
+
+	private PluginHarness harness;
+	private PMColorsPlugin plugin;
+
+	@Before
+	public void setUp()
+	{
+		Assume.assumeTrue("soak tests only run with -Dpmcolors.soak=true", Boolean.getBoolean("pmcolors.soak"));
+		harness = new PluginHarness();
+		plugin = harness.getPlugin();
+	}
+
+	@After
+	public void tearDown()
+	{
+		if (harness != null)
+		{
+			harness.close();
+		}
+	}
+
+	@Test
+	public void startUpShutDownCycles() throws Exception
+	{
+		for (int i = 0; i < WARMUP_CYCLES; i++)
+		{
+			cycle(i);
+		}
+
+		final Usage before = Usage.measure();
+		for (int i = 0; i < CYCLES; i++)
+		{
+			cycle(i);
+			assertEquals("listeners left after shutdown", 0, plugin.getRegistry().getListenerCount());
+		}
+		final Usage after = Usage.measure();
+
+		assertFlat(before, after);
+	}
+
+	@Test
+	public void longSession() throws Exception
+	{
+		plugin.startUp();
+		harness.highlight(1_000);
+
+		final Random random = new Random(42);
+		final int warmup = MESSAGES / 10;
+		Usage before = null;
+		for (int i = 0; i < MESSAGES; i++)
+		{
+			if (i == warmup)
+			{
+				before = Usage.measure();
+			}
+
+			// mostly strangers, as on a busy world, so every cache sees far more names than it holds
+			final String sender = random.nextInt(4) == 0
+				? PluginHarness.playerName(random.nextInt(1_000))
+				: "Stranger " + random.nextInt(1_000_000);
+			privateMessage(sender);
+		}
+
+		assertEquals(1, plugin.getRegistry().getListenerCount());
+		plugin.shutDown();
+		assertFlat(before, Usage.measure());
+	}
+
+	/**
+	 * One enable/disable of the plugin with a little use in between.
+	 */
+	private void cycle(int i) throws Exception
+	{
+		plugin.startUp();
+		plugin.finishCreation(false, "Soak " + (i % 10), Color.RED);
+		privateMessage("Soak " + (i % 10));
+		privateMessage("Stranger " + i);
+		plugin.updateConfig(plugin.getRegistry().find("Soak " + (i % 10)).withColor(Color.BLUE));
+		plugin.shutDown();
+	}
+
+	private void privateMessage(String sender)
+	{
+		final StubMessageNode node = new StubMessageNode(0, ChatMessageType.PRIVATECHAT, sender, MESSAGE);
+		plugin.onChatMessage(new ChatMessage(node.getNode(), ChatMessageType.PRIVATECHAT, sender, MESSAGE, null, 0));
+
+		final StubClient client = harness.getStubClient();
+		client.stringStack = new String[]{"", "", sender, "From", sender, ":"};
+		client.stringStackSize = client.stringStack.length;
+		final ScriptCallbackEvent event = new ScriptCallbackEvent();
+		event.setEventName("privateChatFrom");
+		plugin.onScriptCallbackEvent(event);
+	}
+
+	private static void assertFlat(Usage before, Usage after)
+	{
+		final List<String> problems = new ArrayList<>();
+		if (after.heap - before.heap > MAX_HEAP_GROWTH)
+		{
+			problems.add(String.format("retained heap grew by %d KB", (after.heap - before.heap) >> 10));
+		}
+		if (after.threads - before.threads > MAX_THREAD_GROWTH)
+		{
+			problems.add(String.format("thread count grew from %d to %d", before.threads, after.threads));
+		}
+
+		if (!problems.isEmpty())
+		{
+			fail(String.join(", ", problems) + "\n" + histogramDiff(before.histogram, after.histogram));
+		}
+	}
+
+	/**
+	 * The classes whose retained bytes grew the most.
+	 */
+	private static String histogramDiff(Map<String, long[]> before, Map<String, long[]> after)
+	{
+		final List<Map.Entry<String, long[]>> growth = new ArrayList<>();
+		for (Map.Entry<String, long[]> entry : after.entrySet())
+		{
+			final long[] old = before.getOrDefault(entry.getKey(), new long[2]);
+			growth.add(new AbstractMap.SimpleEntry<>(entry.getKey(),
+				new long[]{entry.getValue()[0] - old[0], entry.getValue()[1] - old[1]}));
+		}
+		growth.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+
+		final StringBuilder sb = new StringBuilder(String.format("%12s %14s  %s%n", "instances", "bytes", "class"));
+		for (int i = 0; i < Math.min(HISTOGRAM_LINES, growth.size()); i++)
+		{
+			final Map.Entry<String, long[]> entry = growth.get(i);
+			sb.append(String.format("%+12d %+14d  %s%n", entry.getValue()[0], entry.getValue()[1], entry.getKey()));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The heap left after a full collection, the live threads and a class histogram.
+	 */
+	private static final class Usage
+	{
+		private long heap;
+		private int threads;
+		private Map<String, long[]> histogram;
+
+		static Usage measure() throws Exception
+		{
+			// let the queued panel updates run before measuring
+			SwingUtilities.invokeAndWait(() ->
+			{
+			});
+
+			final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+			for (int i = 0; i < 3; i++)
+			{
+				System.gc();
+				Thread.sleep(50);
+			}
+
+			final Usage usage = new Usage();
+			usage.histogram = classHistogram();
+			usage.heap = memory.getHeapMemoryUsage().getUsed();
+			usage.threads = ManagementFactory.getThreadMXBean().getThreadCount();
+			return usage;
+		}
+
+		/**
+		 * The live objects per class as (instances, bytes), as printed by jcmd GC.class_histogram.
+		 */
+		private static Map<String, long[]> classHistogram() throws Exception
+		{
+			final String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+				new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+				new Object[]{null}, new String[]{String[].class.getName()});
+
+			final Map<String, long[]> classes = new HashMap<>();
+			for (String line : histogram.split("\n"))
+			{
+				// "   1:         12345        678901  java.lang.String"
+				final String[] fields = line.trim().split("\\s+");
+				if (fields.length >= 4 && fields[0].endsWith(":"))
+				{
+					classes.put(fields[3], new long[]{Long.parseLong(fields[1]), Long.parseLong(fields[2])});
+				}
+			}
+			return classes;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.pmcolors;
+
+import java.awt.Color;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PatternRulesTest
+{
+	private static final HighlightStyle STYLE = HighlightStyle.of(Color.RED, true, true, true);
+
+	@Test
+	public void parsesEachKind()
+	{
+		final PatternRules rules = PatternRules.parse("Zezima\nIron *\n*pk*\n/b[0-9]+/ = Bots\n\n/unclosed\n", STYLE);
+
+		assertEquals(4, rules.getRules().size());
+		assertEquals(PatternRules.Kind.EXACT, rules.getRules().get(0).getKind());
+		assertEquals("zezima", rules.getRules().get(0).getPattern());
+		assertEquals(PatternRules.Kind.PREFIX, rules.getRules().get(1).getKind());
+		assertEquals("iron *", rules.getRules().get(1).getPattern());
+		assertEquals(PatternRules.Kind.WILDCARD, rules.getRules().get(2).getKind());
+		assertEquals(PatternRules.Kind.REGEX, rules.getRules().get(3).getKind());
+		assertEquals("Bots", rules.getRules().get(3).getGroup());
+		assertNull(rules.getRules().get(0).getGroup());
+	}
+
+	@Test
+	public void matchesEachKind()
+	{
+		final PatternRules rules = PatternRules.parse("Zezima\nIron *\n*pk*\n/b[0-9]+/", STYLE);
+
+		assertEquals(0, rules.match("zezima"));
+		assertEquals(-1, rules.match("zezima2"));
+		assertEquals(1, rules.match("iron bob"));
+		assertEquals(-1, rules.match("ironbob"));
+		assertEquals(2, rules.match("xx pk xx"));
+		assertEquals(2, rules.match("pk"));
+		assertEquals(3, rules.match("b123"));
+		assertEquals(-1, rules.match("b12x"));
+		assertEquals(-1, rules.match("nobody"));
+	}
+
+	@Test
+	public void firstListedRuleWins()
+	{
+		final PatternRules rules = PatternRules.parse("/.*pk.*/\n*pk*\nIron *\niron pker", STYLE);
+		assertEquals(0, rules.match("iron pker"));
+
+		final PatternRules reversed = PatternRules.parse("iron pker\nIron *\n*pk*\n/.*pk.*/", STYLE);
+		assertEquals(0, reversed.match("iron pker"));
+		assertEquals(1, reversed.match("iron pk"));
+		assertEquals(2, reversed.match("a pk"));
+	}
+
+	@Test
+	public void regexGroupNumbersAreTheRulesOwn()
+	{
+		final PatternRules rules = PatternRules.parse("/x/\n/(a)\\1/", STYLE);
+		assertEquals(1, rules.match("aa"));
+		assertEquals(-1, rules.match("ab"));
+	}
+
+	@Test
+	public void regexNamedGroupsDoNotClash()
+	{
+		final PatternRules rules = PatternRules.parse("/(?<r0>a)b/\n/(?<r1>c)(?<r0>d)/", STYLE);
+		assertEquals(2, rules.getRules().size());
+		assertEquals(0, rules.match("ab"));
+		assertEquals(1, rules.match("cd"));
+	}
+
+	@Test
+	public void invalidRegexIsSkipped()
+	{
+		final PatternRules rules = PatternRules.parse("/(/\nZezima", STYLE);
+		assertEquals(1, rules.getRules().size());
+		assertEquals(0, rules.match("zezima"));
+	}
+
+	@Test
+	public void regexIsCaseInsensitive()
+	{
+		final PatternRules rules = PatternRules.parse("/ZEZ.*/", STYLE);
+		assertEquals(0, rules.match("zezima"));
+	}
+
+	@Test
+	public void canonicalizesPatterns()
+	{
+		final PatternRules rules = PatternRules.parse("Lynx_Titan\nIRON-*", STYLE);
+		assertEquals(0, rules.match("lynx titan"));
+		assertEquals(1, rules.match("iron man"));
+	}
+
+	@Test
+	public void wildcardWithoutLiteral()
+	{
+		final PatternRules rules = PatternRules.parse("Zezima\n*", STYLE);
+		assertEquals(0, rules.match("zezima"));
+		assertEquals(1, rules.match("anyone"));
+	}
+
+	@Test
+	public void empty()
+	{
+		assertTrue(PatternRules.parse(null, STYLE).isEmpty());
+		assertTrue(PatternRules.parse(" \n\n", STYLE).isEmpty());
+		assertEquals(-1, PatternRules.EMPTY.match("zezima"));
+	}
+
+	@Test
+	public void globMatches()
+	{
+		assertTrue(PatternRules.globMatches("*", ""));
+		assertTrue(PatternRules.globMatches("a*", "a"));
+		assertTrue(PatternRules.globMatches("*pk*", "pk"));
+		assertTrue(PatternRules.globMatches("a*b*c", "aXbYbZc"));
+		assertTrue(PatternRules.globMatches("a**c", "abc"));
+		assertTrue(PatternRules.globMatches("*ab", "aab"));
+		assertFalse(PatternRules.globMatches("a*b", "ac"));
+		assertFalse(PatternRules.globMatches("abc", "ab"));
+		assertFalse(PatternRules.globMatches("ab", "abc"));
+		assertFalse(PatternRules.globMatches("a*c", "abcd"));
+	}
+}
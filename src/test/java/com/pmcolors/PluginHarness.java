@@ -0,0 +1,147 @@
+package com.pmcolors;
+
+import com.google.inject.Guice;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+import net.runelite.api.Client;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.ui.ClientToolbar;
+import net.runelite.client.ui.components.colorpicker.ColorPickerManager;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds a {@link PMColorsPlugin} outside of the client: the client is a {@link StubClient},
+ * the config manager keeps its values in memory and everything else is mocked.
+ */
+public class PluginHarness implements AutoCloseable
+{
+	private final StubClient stubClient = new StubClient();
+
+	/**
+	 * Raw config values keyed by "group.key".
+	 */
+	private final Map<String, String> configuration = new HashMap<>();
+
+	@Bind
+	private final Client client = stubClient.getClient();
+
+	@Bind
+	private final PMColorsConfig config = mock(PMColorsConfig.class, CALLS_REAL_METHODS);
+
+	@Bind
+	private final ClientThread clientThread = mock(ClientThread.class);
+
+	@Bind
+	private final ConfigManager configManager = mock(ConfigManager.class);
+
+	@Bind
+	private final ClientToolbar clientToolbar = mock(ClientToolbar.class);
+
+	@Bind
+	private final ColorPickerManager colorPickerManager = mock(ColorPickerManager.class);
+
+	@Bind
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+	private final PMColorsPlugin plugin = new PMColorsPlugin();
+
+	public PluginHarness()
+	{
+		when(configManager.getConfiguration(anyString(), anyString()))
+			.thenAnswer(i -> configuration.get(i.getArgument(0) + "." + i.getArgument(1)));
+		doAnswer(i -> configuration.put(i.getArgument(0) + "." + i.getArgument(1), i.getArgument(2)))
+			.when(configManager).setConfiguration(anyString(), anyString(), anyString());
+		doAnswer(i -> configuration.remove(i.getArgument(0) + "." + i.getArgument(1)))
+			.when(configManager).unsetConfiguration(anyString(), anyString());
+		when(configManager.getConfigurationKeys(anyString()))
+			.thenAnswer(i -> configuration.keySet().stream()
+				.filter(k -> k.startsWith(i.getArgument(0)))
+				.collect(Collectors.toList()));
+
+		// there is no client thread, client thread work runs right away
+		doAnswer(i ->
+		{
+			i.<Runnable>getArgument(0).run();
+			return null;
+		}).when(clientThread).invokeLater(any(Runnable.class));
+
+		Guice.createInjector(BoundFieldModule.of(this)).injectMembers(plugin);
+	}
+
+	public PMColorsPlugin getPlugin()
+	{
+		return plugin;
+	}
+
+	public StubClient getStubClient()
+	{
+		return stubClient;
+	}
+
+	public Map<String, String> getConfiguration()
+	{
+		return configuration;
+	}
+
+	public ClientToolbar getClientToolbar()
+	{
+		return clientToolbar;
+	}
+
+	public ScheduledExecutorService getExecutor()
+	{
+		return executor;
+	}
+
+	/**
+	 * Highlights players named "Player 0" up to "Player {count - 1}".
+	 */
+	public void highlight(int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			plugin.getRegistry().add(new PlayerHighlight(playerName(i), Color.ORANGE, true, true, true));
+		}
+	}
+
+	public static String playerName(int i)
+	{
+		return "Player " + i;
+	}
+
+	/**
+	 * Picks {@code count} sender names of which roughly {@code hitPercent} percent are among the
+	 * {@code players} highlighted by {@link #highlight(int)}.
+	 */
+	public static String[] senders(int count, int players, int hitPercent, long seed)
+	{
+		final Random random = new Random(seed);
+		final String[] names = new String[count];
+		for (int i = 0; i < count; i++)
+		{
+			names[i] = random.nextInt(100) < hitPercent
+				? playerName(random.nextInt(players))
+				: "Stranger " + random.nextInt(100_000);
+		}
+		return names;
+	}
+
+	@Override
+	public void close()
+	{
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,57 @@
+package com.pmcolors;
+
+import com.google.common.base.Defaults;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import net.runelite.api.Client;
+import net.runelite.api.MenuEntry;
+
+/**
+ * A {@link Client} that only implements the calls the plugin makes, cheap enough to sit in a
+ * benchmark loop. Every other method returns its type's default value.
+ */
+public class StubClient implements InvocationHandler
+{
+	public String[] stringStack = new String[0];
+	public int stringStackSize;
+	public MenuEntry[] menuEntries = new MenuEntry[0];
+	public int chatRefreshes;
+
+	private final Client client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class}, this);
+
+	public Client getClient()
+	{
+		return client;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args)
+	{
+		switch (method.getName())
+		{
+			case "getStringStack":
+				return stringStack;
+			case "getStringStackSize":
+				return stringStackSize;
+			case "getMenuEntries":
+				return menuEntries;
+			case "setMenuEntries":
+				menuEntries = (MenuEntry[]) args[0];
+				return null;
+			case "isClientThread":
+				return true;
+			case "refreshChat":
+				chatRefreshes++;
+				return null;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return "StubClient";
+			default:
+				return Defaults.defaultValue(method.getReturnType());
+		}
+	}
+}
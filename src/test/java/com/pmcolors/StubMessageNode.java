@@ -0,0 +1,61 @@
+package com.pmcolors;
+
+import com.google.common.base.Defaults;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.MessageNode;
+
+/**
+ * A {@link MessageNode} backed by plain fields.
+ */
+public class StubMessageNode implements InvocationHandler
+{
+	public int id;
+	public ChatMessageType type;
+	public String name;
+	public String value;
+
+	private final MessageNode node = (MessageNode) Proxy.newProxyInstance(MessageNode.class.getClassLoader(), new Class<?>[]{MessageNode.class}, this);
+
+	public StubMessageNode(int id, ChatMessageType type, String name, String value)
+	{
+		this.id = id;
+		this.type = type;
+		this.name = name;
+		this.value = value;
+	}
+
+	public MessageNode getNode()
+	{
+		return node;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args)
+	{
+		switch (method.getName())
+		{
+			case "getId":
+				return id;
+			case "getType":
+				return type;
+			case "getName":
+				return name;
+			case "getValue":
+				return value;
+			case "setValue":
+				value = (String) args[0];
+				return null;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return "StubMessageNode(" + name + ": " + value + ")";
+			default:
+				return Defaults.defaultValue(method.getReturnType());
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package com.pmcolors;
+
+import com.google.common.base.Defaults;
+import java.awt.Color;
+import java.lang.reflect.Proxy;
+import net.runelite.api.Client;
+import net.runelite.api.ScriptID;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.api.widgets.WidgetType;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class WidgetRecolorerTest
+{
+	private final HighlightRegistry registry = new HighlightRegistry();
+	// laid out like the friends list, a name and its world on each row
+	private final StubWidget[] rows = {new StubWidget("Zezima", 0), new StubWidget("World 301", 0),
+		new StubWidget("Lynx Titan", 15), new StubWidget("Offline", 15)};
+	private WidgetRecolorer recolorer;
+
+	@Before
+	public void setUp()
+	{
+		final Widget[] children = new Widget[rows.length];
+		for (int i = 0; i < rows.length; i++)
+		{
+			children[i] = rows[i].widget;
+		}
+		final StubWidget list = new StubWidget("", 0);
+		list.children = children;
+
+		final Client client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+			(proxy, method, args) -> method.getName().equals("getWidget") && args.length == 1 && args[0] == WidgetInfo.FRIENDS_LIST
+				? list.widget
+				: Defaults.defaultValue(method.getReturnType()));
+		recolorer = new WidgetRecolorer(client);
+		registry.add(new PlayerHighlight("Zezima", Color.RED, true, true, true));
+	}
+
+	@Test
+	public void colorsHighlightedNames()
+	{
+		recolorer.update(registry.getSnapshot());
+
+		assertEquals("<col=ff0000>Zezima</col>", rows[0].text);
+		assertEquals("World 301", rows[1].text);
+		assertEquals("Lynx Titan", rows[2].text);
+		assertEquals(1, writes());
+
+		recolorer.update(registry.getSnapshot());
+		assertEquals(1, writes());
+	}
+
+	@Test
+	public void leavesWorldAndStatusAlone()
+	{
+		try (HighlightRegistry.Transaction transaction = registry.begin())
+		{
+			transaction.setRules(PatternRules.parse("world*\n/^o/", HighlightStyle.of(Color.GREEN, true, true, true)));
+		}
+		recolorer.update(registry.getSnapshot());
+
+		assertEquals("World 301", rows[1].text);
+		assertEquals("Offline", rows[3].text);
+		assertEquals(0, rows[1].writes + rows[3].writes);
+	}
+
+	@Test
+	public void onlyRewritesNamesWhoseColorChanged()
+	{
+		recolorer.update(registry.getSnapshot());
+
+		registry.add(new PlayerHighlight("Someone Else", Color.BLUE, true, true, true));
+		recolorer.update(registry.getSnapshot());
+		assertEquals(1, writes());
+
+		registry.add(new PlayerHighlight("Lynx Titan", Color.BLUE, true, true, true));
+		recolorer.update(registry.getSnapshot());
+		assertEquals("<col=0000ff>Lynx Titan</col>", rows[2].text);
+		assertEquals(1, rows[0].writes);
+		assertEquals(2, writes());
+
+		registry.update(registry.find("Zezima").withHighlightUsername(false));
+		recolorer.update(registry.getSnapshot());
+		assertEquals("Zezima", rows[0].text);
+		assertEquals(1, rows[2].writes);
+	}
+
+	@Test
+	public void recolorsRowsTheGameRebuilt()
+	{
+		recolorer.update(registry.getSnapshot());
+
+		rows[0].text = "Lynx Titan";
+		rows[2].text = "Zezima";
+		recolorer.scriptRan(ScriptID.FRIENDS_UPDATE);
+		recolorer.update(registry.getSnapshot());
+
+		assertEquals("Lynx Titan", rows[0].text);
+		assertEquals("<col=ff0000>Zezima</col>", rows[2].text);
+	}
+
+	@Test
+	public void restorePutsBackTheOriginalText()
+	{
+		recolorer.update(registry.getSnapshot());
+		recolorer.restore();
+		assertEquals("Zezima", rows[0].text);
+	}
+
+	private int writes()
+	{
+		int writes = 0;
+		for (StubWidget row : rows)
+		{
+			writes += row.writes;
+		}
+		return writes;
+	}
+
+	private static class StubWidget
+	{
+		private String text;
+		private int y;
+		private Widget[] children;
+		private int writes;
+
+		private final Widget widget = (Widget) Proxy.newProxyInstance(Widget.class.getClassLoader(), new Class<?>[]{Widget.class},
+			(proxy, method, args) ->
+			{
+				switch (method.getName())
+				{
+					case "getText":
+						return text;
+					case "setText":
+						text = (String) args[0];
+						writes++;
+						return null;
+					case "getDynamicChildren":
+						return children;
+					case "getType":
+						return WidgetType.TEXT;
+					case "getOriginalY":
+						return y;
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					default:
+						return Defaults.defaultValue(method.getReturnType());
+				}
+			});
+
+		StubWidget(String text, int y)
+		{
+			this.text = text;
+			this.y = y;
+		}
+	}
+}